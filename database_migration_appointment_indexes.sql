@@ -0,0 +1,11 @@
+-- Migration: Indexes supporting slot generation and booking queries
+-- Safe to run multiple times: uses IF NOT EXISTS
+
+-- Slot generation, bulk materialization and per-day lookups filter by doctor and time
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_time
+    ON appointments (doctor_id, appointment_time);
+
+-- The reservation expiry sweep only touches rows that currently hold a reservation
+CREATE INDEX IF NOT EXISTS idx_appointments_reservation_expires
+    ON appointments (reservation_expires_at)
+    WHERE reservation_expires_at IS NOT NULL;
@@ -0,0 +1,22 @@
+-- Migration: At most one live (not cancelled) appointment row per doctor and start time
+-- Lets slot materialization insert with ON CONFLICT DO NOTHING, so overlapping runs never duplicate slots
+-- Safe to run multiple times: duplicates are resolved first and the index uses IF NOT EXISTS
+
+-- Resolve existing duplicate AVAILABLE slots: keep a booked or held row over a free one, then the oldest.
+-- The extra free rows are cancelled rather than deleted. Two clashing bookings are left for manual review
+-- (the index creation below fails until they are resolved).
+UPDATE appointments SET status = 'CANCELLED'
+WHERE status = 'AVAILABLE'
+  AND id IN (
+    SELECT id FROM (
+        SELECT id, ROW_NUMBER() OVER (PARTITION BY doctor_id, appointment_time
+                                      ORDER BY (status = 'AVAILABLE'), (reserved_by_patient_id IS NULL), id) AS rn
+        FROM appointments
+        WHERE status <> 'CANCELLED'
+    ) ranked
+    WHERE rn > 1
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_appointments_live_doctor_time
+    ON appointments (doctor_id, appointment_time)
+    WHERE status <> 'CANCELLED';
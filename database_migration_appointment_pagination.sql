@@ -0,0 +1,10 @@
+-- Migration: Indexes supporting keyset-paginated appointment listings
+-- Safe to run multiple times: uses IF NOT EXISTS
+
+-- Admin listing pages through all appointments in (appointment_time, id) order
+CREATE INDEX IF NOT EXISTS idx_appointments_time_id
+    ON appointments (appointment_time, id);
+
+-- Patient listings page through one patient's appointments in time order
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_time
+    ON appointments (patient_id, appointment_time, id);
@@ -0,0 +1,10 @@
+-- Migration: Recurring appointment series
+-- Safe to run multiple times: uses IF NOT EXISTS
+
+ALTER TABLE IF EXISTS appointments
+    ADD COLUMN IF NOT EXISTS series_id VARCHAR(36);
+
+-- Appointments of one series are looked up together
+CREATE INDEX IF NOT EXISTS idx_appointments_series
+    ON appointments (series_id)
+    WHERE series_id IS NOT NULL;
@@ -0,0 +1,15 @@
+-- Migration: Stored responses for Idempotency-Key on payment endpoints
+-- Safe to run multiple times: uses IF NOT EXISTS
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    scoped_key    VARCHAR(400) PRIMARY KEY,
+    request_hash  VARCHAR(64)  NOT NULL,
+    status_code   INTEGER      NOT NULL,
+    response_body TEXT         NOT NULL,
+    created_at    TIMESTAMP    NOT NULL,
+    expires_at    TIMESTAMP    NOT NULL
+);
+
+-- The hourly purge deletes by expiry
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires
+    ON idempotency_keys (expires_at);
@@ -0,0 +1,11 @@
+-- Migration: Write-behind appointment status history
+-- Safe to run multiple times: uses IF NOT EXISTS
+
+-- Status history entries not yet copied to appointment_status_history, one JSON line each
+ALTER TABLE IF EXISTS appointments
+    ADD COLUMN IF NOT EXISTS pending_history TEXT;
+
+-- The recovery sweep only looks at appointments with pending entries
+CREATE INDEX IF NOT EXISTS idx_appointments_pending_history
+    ON appointments (id)
+    WHERE pending_history IS NOT NULL;
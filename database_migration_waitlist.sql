@@ -0,0 +1,22 @@
+-- Migration: Waitlist entries for automatic slot offers on cancellation
+-- Safe to run multiple times: uses IF NOT EXISTS
+
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id                     BIGSERIAL PRIMARY KEY,
+    doctor_id              INTEGER     NOT NULL REFERENCES doctors (id),
+    patient_id             INTEGER     NOT NULL REFERENCES patients (id),
+    from_date              DATE        NOT NULL,
+    to_date                DATE        NOT NULL,
+    earliest_time          TIME        NOT NULL,
+    latest_time            TIME        NOT NULL,
+    status                 VARCHAR(20) NOT NULL,
+    created_at             TIMESTAMP   NOT NULL,
+    offered_appointment_id INTEGER,
+    offer_expires_at       TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_entries_status
+    ON waitlist_entries (status);
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_entries_patient
+    ON waitlist_entries (patient_id);
@@ -0,0 +1,49 @@
+package com.doctor.appointment.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded executors for background work that must not run on request threads
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor for slot materialization: one task per doctor, at most one thread per core
+     */
+    @Bean(name = "slotGenerationExecutor")
+    public ThreadPoolTaskExecutor slotGenerationExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("slot-gen-");
+        // When the queue is full the submitting thread does the work instead of dropping it
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for the per-doctor booking lanes: each active doctor has at most one task queued or running
+     */
+    @Bean(name = "bookingSequencerExecutor")
+    public ThreadPoolTaskExecutor bookingSequencerExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("booking-lane-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
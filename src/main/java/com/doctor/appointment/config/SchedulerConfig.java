@@ -1,7 +1,11 @@
 package com.doctor.appointment.config;
 
 import com.doctor.appointment.service.AppointmentReservationService;
+import com.doctor.appointment.service.IdempotencyService;
+import com.doctor.appointment.service.SlotBulkGenerationService;
+import com.doctor.appointment.service.WaitlistService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -9,6 +13,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 /**
  * Configuration for scheduled tasks
  * Automatically cleans up expired reservations every minute
+ * and keeps AVAILABLE slots materialized over a rolling horizon
  */
 @Configuration
 @EnableScheduling
@@ -17,6 +22,21 @@ public class SchedulerConfig {
     @Autowired
     private AppointmentReservationService reservationService;
 
+    @Autowired
+    private SlotBulkGenerationService slotBulkGenerationService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Value("${slots.materialization.enabled:true}")
+    private boolean slotMaterializationEnabled;
+
+    @Value("${slots.materialization.horizon-weeks:8}")
+    private int slotMaterializationHorizonWeeks;
+
     /**
      * Clean up expired reservations every minute
      * This ensures slots are released if payment is not completed within 5 minutes
@@ -25,4 +45,31 @@ public class SchedulerConfig {
     public void cleanupExpiredReservations() {
         reservationService.cleanupExpiredReservations();
     }
+
+    /**
+     * Materialize slots off-peak so every doctor stays bookable the configured number of weeks ahead
+     * Only the days past each doctor's last materialized day are generated
+     */
+    @Scheduled(cron = "${slots.materialization.cron:0 30 2 * * *}")
+    public void extendSlotHorizon() {
+        if (slotMaterializationEnabled) {
+            slotBulkGenerationService.extendRollingHorizon(slotMaterializationHorizonWeeks);
+        }
+    }
+
+    /**
+     * Drop stored Idempotency-Key responses past their TTL every hour
+     */
+    @Scheduled(fixedRate = 3600000)
+    public void purgeExpiredIdempotencyKeys() {
+        idempotencyService.purgeExpired();
+    }
+
+    /**
+     * Settle lapsed waitlist offers every 30 seconds so unclaimed slots move to the next patient
+     */
+    @Scheduled(fixedRate = 30000)
+    public void processLapsedWaitlistOffers() {
+        waitlistService.processLapsedOffers();
+    }
 }
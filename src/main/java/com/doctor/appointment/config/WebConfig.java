@@ -21,7 +21,7 @@ public class WebConfig implements WebMvcConfigurer {
                     "http://localhost:8081" // iOS simulator
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
-                .allowedHeaders("Authorization", "Content-Type", "X-Requested-With")
+                .allowedHeaders("Authorization", "Content-Type", "X-Requested-With", "X-Admission-Token", "Idempotency-Key")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
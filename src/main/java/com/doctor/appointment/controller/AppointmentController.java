@@ -1,13 +1,24 @@
 package com.doctor.appointment.controller;
 
+import com.doctor.appointment.exception.BookingQueueBusyException;
+import com.doctor.appointment.exception.SlotConflictException;
+import com.doctor.appointment.model.AppointmentStatus;
 import com.doctor.appointment.model.DTO.AppointmentDTO;
+import com.doctor.appointment.model.DTO.AppointmentPageDTO;
 import com.doctor.appointment.model.DTO.AppointmentCreateDTO;
 import com.doctor.appointment.model.DTO.AppointmentStatusUpdateDTO;
 import com.doctor.appointment.model.DTO.AppointmentSlotCreateDTO;
 import com.doctor.appointment.model.DTO.AvailableSlotDTO;
+import com.doctor.appointment.model.DTO.BulkStatusUpdateDTO;
+import com.doctor.appointment.model.DTO.BulkStatusUpdateResultDTO;
+import com.doctor.appointment.model.DTO.SlotSearchResultDTO;
 import com.doctor.appointment.service.AppointmentService;
 import com.doctor.appointment.service.AppointmentSlotGenerationService;
+import com.doctor.appointment.service.DoctorBookingSequencer;
+import com.doctor.appointment.service.SlotSearchService;
+import com.doctor.appointment.service.SlotVersionRegistry;
 import com.doctor.appointment.model.DTO.AppointmentStatusHistoryDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,12 +30,24 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
@@ -40,8 +63,15 @@ public class AppointmentController {
 
     private final AppointmentService appointmentService;
     private final AppointmentSlotGenerationService slotGenerationService;
+    private final SlotSearchService slotSearchService;
+    private final ObjectMapper objectMapper;
+    private final DoctorBookingSequencer bookingSequencer;
+    private final SlotVersionRegistry slotVersionRegistry;
 
-    @Operation(summary = "Get all appointments", description = "Returns a list of all appointments")
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Operation(summary = "Get all appointments", deprecated = true,
+            description = "Returns a list of all appointments. Use /api/appointments/page instead.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved appointments"),
             @ApiResponse(responseCode = "401", description = "Not authorized"),
@@ -52,6 +82,74 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.findAll());
     }
 
+    @Operation(summary = "Get a page of appointments",
+            description = "Returns appointments in (appointment time, id) order, optionally filtered by status " +
+                    "(repeatable) and an inclusive date range. Pass nextCursor back as cursor for the next page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit, date range or cursor"),
+            @ApiResponse(responseCode = "401", description = "Not authorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<?> getAppointmentPage(
+            @RequestParam(required = false) List<AppointmentStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return page(null, null, status, from, to, cursor, limit);
+    }
+
+    @Operation(summary = "Get a page of a doctor's appointments",
+            description = "Same paging and filters as /api/appointments/page, limited to one doctor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit, date range or cursor")
+    })
+    @GetMapping("/doctor/{doctorId}/page")
+    public ResponseEntity<?> getAppointmentPageByDoctor(
+            @PathVariable int doctorId,
+            @RequestParam(required = false) List<AppointmentStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return page(doctorId, null, status, from, to, cursor, limit);
+    }
+
+    @Operation(summary = "Get a page of a patient's appointments",
+            description = "Same paging and filters as /api/appointments/page, limited to one patient")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit, date range or cursor")
+    })
+    @GetMapping("/patient/{patientId}/page")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getAppointmentPageByPatient(
+            @PathVariable int patientId,
+            @RequestParam(required = false) List<AppointmentStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return page(null, patientId, status, from, to, cursor, limit);
+    }
+
+    private ResponseEntity<?> page(Integer doctorId, Integer patientId, List<AppointmentStatus> status,
+                                   LocalDate from, LocalDate to, String cursor, int limit) {
+        try {
+            AppointmentPageDTO page = appointmentService.findPage(doctorId, patientId, status, from, to, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "INVALID_PAGE_REQUEST"
+                    ));
+        }
+    }
+
     @Operation(summary = "Get appointment by ID", description = "Returns a specific appointment by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved appointment"),
@@ -126,7 +224,8 @@ public class AppointmentController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Appointment confirmed successfully"),
             @ApiResponse(responseCode = "404", description = "Appointment not found"),
-            @ApiResponse(responseCode = "400", description = "Appointment not reserved or already booked")
+            @ApiResponse(responseCode = "400", description = "Appointment not reserved or reservation expired"),
+            @ApiResponse(responseCode = "409", description = "Appointment already booked or reserved by another patient")
     })
     @PatchMapping("/{appointmentId}/confirm")
     @PreAuthorize("hasRole('PATIENT')")
@@ -135,14 +234,20 @@ public class AppointmentController {
             @RequestBody Map<String, Object> confirmData) {
         try {
             int patientId = (Integer) confirmData.get("patientId");
-            AppointmentDTO appointment = appointmentService.confirmReservation(appointmentId, patientId);
+            AppointmentDTO appointment = bookingSequencer.book(appointmentId, patientId,
+                    () -> appointmentService.confirmReservation(appointmentId, patientId));
             return ResponseEntity.ok(appointment);
+        } catch (SlotConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (BookingQueueBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
-    @Operation(summary = "Get appointments by doctor ID", description = "Returns all appointments for a specific doctor")
+    @Operation(summary = "Get appointments by doctor ID", deprecated = true,
+            description = "Returns all appointments for a specific doctor. Use /api/appointments/doctor/{doctorId}/page instead.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved appointments"),
             @ApiResponse(responseCode = "404", description = "Doctor not found"),
@@ -265,6 +370,31 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.updateStatus(appointmentId, statusUpdateDTO));
     }
 
+    @Operation(summary = "Update the status of many appointments",
+            description = "Moves the listed appointments, or a doctor's appointments on a date (optionally only those in " +
+                    "fromStatus), to one status with set-based updates. Each appointment gets an outcome: UPDATED, " +
+                    "UNCHANGED, INVALID_TRANSITION, CONFLICT or NOT_FOUND. Use it e.g. to mark a clinic day COMPLETED.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-appointment outcomes"),
+            @ApiResponse(responseCode = "400", description = "No targets given or too many appointments"),
+            @ApiResponse(responseCode = "401", description = "Not authorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @PostMapping("/status/bulk")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> updateAppointmentStatuses(@Valid @RequestBody BulkStatusUpdateDTO bulkStatusUpdateDTO) {
+        try {
+            BulkStatusUpdateResultDTO result = appointmentService.updateStatuses(bulkStatusUpdateDTO);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "BULK_STATUS_UPDATE_FAILED"
+                    ));
+        }
+    }
+
     @Operation(summary = "Get appointment status history", description = "Returns audit history of status changes for an appointment")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved status history")
@@ -356,12 +486,17 @@ public class AppointmentController {
     @PreAuthorize("permitAll()")
     public ResponseEntity<?> getAvailableSlotsByDoctorAndDate(
             @PathVariable int doctorId,
-            @PathVariable String date) {
+            @PathVariable String date,
+            WebRequest request) {
         
         try {
             LocalDate localDate = LocalDate.parse(date);
+            String etag = slotVersionRegistry.etag(doctorId, localDate);
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
             List<AppointmentDTO> availableSlots = appointmentService.getAvailableSlotsByDoctorAndDate(doctorId, localDate);
-            return ResponseEntity.ok(availableSlots);
+            return versioned(etag).body(availableSlots);
         } catch (Exception e) {
             e.printStackTrace(); // Log the full stack trace
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -406,8 +541,13 @@ public class AppointmentController {
             @PathVariable int patientId) {
         
         try {
-            AppointmentDTO bookedAppointment = appointmentService.bookAppointment(appointmentId, patientId);
+            AppointmentDTO bookedAppointment = bookingSequencer.book(appointmentId, patientId,
+                    () -> appointmentService.bookAppointment(appointmentId, patientId));
             return ResponseEntity.ok(bookedAppointment);
+        } catch (SlotConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (BookingQueueBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
@@ -425,10 +565,15 @@ public class AppointmentController {
     @PreAuthorize("permitAll()")
     public ResponseEntity<?> getSmartAvailableSlots(
             @PathVariable int doctorId,
-            @PathVariable String date) {
+            @PathVariable String date,
+            WebRequest request) {
         
         try {
             LocalDate localDate = LocalDate.parse(date);
+            String etag = slotVersionRegistry.etag(doctorId, localDate);
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
             List<AvailableSlotDTO> availableSlots = slotGenerationService.generateAvailableSlots(doctorId, localDate);
             
             // Filter to return only available slots
@@ -436,7 +581,7 @@ public class AppointmentController {
                     .filter(AvailableSlotDTO::isAvailable)
                     .collect(java.util.stream.Collectors.toList());
             
-            return ResponseEntity.ok(onlyAvailable);
+            return versioned(etag).body(onlyAvailable);
         } catch (Exception e) {
             logger.error("Error generating smart slots for doctor {} on date {}", doctorId, date, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -458,11 +603,16 @@ public class AppointmentController {
     public ResponseEntity<?> getSmartAvailableSlotsForRange(
             @PathVariable int doctorId,
             @RequestParam String startDate,
-            @RequestParam String endDate) {
+            @RequestParam String endDate,
+            WebRequest request) {
         
         try {
             LocalDate start = LocalDate.parse(startDate);
             LocalDate end = LocalDate.parse(endDate);
+            String etag = slotVersionRegistry.etag(doctorId, start, end);
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
             
             List<AvailableSlotDTO> availableSlots = slotGenerationService
                     .generateAvailableSlotsForDateRange(doctorId, start, end);
@@ -472,7 +622,7 @@ public class AppointmentController {
                     .filter(AvailableSlotDTO::isAvailable)
                     .collect(java.util.stream.Collectors.toList());
             
-            return ResponseEntity.ok(onlyAvailable);
+            return versioned(etag).body(onlyAvailable);
         } catch (Exception e) {
             logger.error("Error generating smart slots for doctor {} for date range", doctorId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -483,6 +633,197 @@ public class AppointmentController {
         }
     }
     
+    @Operation(summary = "Stream available slots for a date range as NDJSON",
+            description = "Writes one available slot per line (application/x-ndjson) day by day. " +
+                    "With a limit, a final {\"nextCursor\": ...} line is written when more slots follow; " +
+                    "pass it back as cursor to continue after the last returned slot")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Streaming available slots"),
+            @ApiResponse(responseCode = "400", description = "Invalid dates, cursor or limit")
+    })
+    @GetMapping("/slots/smart/doctor/{doctorId}/range/stream")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> streamSmartAvailableSlotsForRange(
+            @PathVariable int doctorId,
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "0") int limit,
+            WebRequest request) {
+        
+        LocalDate start;
+        LocalDate end;
+        LocalDateTime after;
+        try {
+            start = LocalDate.parse(startDate);
+            end = LocalDate.parse(endDate);
+            after = cursor != null ? LocalDateTime.parse(cursor) : null;
+            if (end.isBefore(start)) {
+                throw new IllegalArgumentException("End date cannot be before start date");
+            }
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", "Invalid stream parameters: " + e.getMessage(),
+                            "error", e.getClass().getSimpleName()
+                    ));
+        }
+        
+        String etag = slotVersionRegistry.etag(doctorId, start, end);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        
+        AppointmentSlotGenerationService.AvailableSlotStream slots;
+        try {
+            slots = slotGenerationService.openAvailableSlotStream(doctorId, start, end);
+        } catch (Exception e) {
+            logger.error("Error opening smart slot stream for doctor {}", doctorId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "message", "Error generating available slots: " + e.getMessage(),
+                            "error", e.getClass().getName()
+                    ));
+        }
+        
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            LocalDateTime[] last = {null};
+            boolean[] truncated = {false};
+            slots.forEach(after, slot -> {
+                if (limit > 0 && written[0] == limit) {
+                    truncated[0] = true;
+                    return false;
+                }
+                // Flush at every day boundary so clients get each day as soon as it is computed
+                if (last[0] != null && !last[0].toLocalDate().equals(slot.getStartTime().toLocalDate())) {
+                    flush(out);
+                }
+                writeLine(out, slot);
+                written[0]++;
+                last[0] = slot.getStartTime();
+                return true;
+            });
+            if (truncated[0]) {
+                writeLine(out, Map.of("nextCursor", last[0].toString()));
+            }
+            out.flush();
+        };
+        return versioned(etag).contentType(NDJSON).body(body);
+    }
+    
+    // Write one NDJSON line
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Slot responses carry the doctor-day version from SlotVersionRegistry as a strong ETag;
+    // clients polling with If-None-Match get 304 without the slots being recomputed
+    private ResponseEntity.BodyBuilder versioned(String etag) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache());
+    }
+    
+    private ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    
+    @Operation(summary = "Get a month availability summary for a doctor",
+            description = "Returns per-day counts of free, booked and on-leave slots for the given month (yyyy-MM) " +
+                    "without listing the slots themselves")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed the summary"),
+            @ApiResponse(responseCode = "400", description = "Invalid month"),
+            @ApiResponse(responseCode = "404", description = "Doctor not found")
+    })
+    @GetMapping("/slots/smart/doctor/{doctorId}/summary")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> getMonthAvailabilitySummary(
+            @PathVariable int doctorId,
+            @RequestParam String month,
+            WebRequest request) {
+        
+        try {
+            YearMonth yearMonth = YearMonth.parse(month);
+            String etag = slotVersionRegistry.etag(doctorId, yearMonth.atDay(1), yearMonth.atEndOfMonth());
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
+            return versioned(etag).body(slotGenerationService.summarizeMonth(doctorId, yearMonth));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", "Invalid month, expected yyyy-MM: " + e.getParsedString(),
+                            "error", e.getClass().getSimpleName()
+                    ));
+        } catch (Exception e) {
+            logger.error("Error summarizing availability for doctor {} in month {}", doctorId, month, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "message", "Error summarizing available slots: " + e.getMessage(),
+                            "error", e.getClass().getName()
+                    ));
+        }
+    }
+    
+    @Operation(summary = "Search the earliest available slots by specialization",
+            description = "Returns the earliest free slots across all doctors with the given specialization, " +
+                    "optionally filtered by maximum fee and time of day")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully searched available slots"),
+            @ApiResponse(responseCode = "400", description = "Invalid search parameters")
+    })
+    @GetMapping("/slots/search/earliest")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> searchEarliestSlots(
+            @RequestParam String specialization,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) BigDecimal maxFee,
+            @RequestParam(required = false) String earliestTime,
+            @RequestParam(required = false) String latestTime,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        try {
+            LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.now();
+            LocalDate end = endDate != null ? LocalDate.parse(endDate) : start.plusDays(13);
+            LocalTime from = earliestTime != null ? LocalTime.parse(earliestTime) : null;
+            LocalTime to = latestTime != null ? LocalTime.parse(latestTime) : null;
+            
+            List<SlotSearchResultDTO> slots = slotSearchService
+                    .findEarliestSlots(specialization, start, end, maxFee, from, to, limit);
+            return ResponseEntity.ok(slots);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", "Invalid search parameters: " + e.getMessage(),
+                            "error", e.getClass().getSimpleName()
+                    ));
+        } catch (Exception e) {
+            logger.error("Error searching earliest slots for specialization {}", specialization, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "message", "Error searching available slots: " + e.getMessage(),
+                            "error", e.getClass().getName()
+                    ));
+        }
+    }
+    
     @Operation(summary = "Auto-generate and create appointment slots based on working hours",
             description = "Automatically creates appointment slots for a doctor based on their working hours for a specific date")
     @ApiResponses(value = {
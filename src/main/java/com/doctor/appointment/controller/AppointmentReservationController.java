@@ -1,6 +1,10 @@
 package com.doctor.appointment.controller;
 
+import com.doctor.appointment.exception.AdmissionRequiredException;
+import com.doctor.appointment.model.ReservationOutcome;
 import com.doctor.appointment.service.AppointmentReservationService;
+import com.doctor.appointment.service.BookingWaitingRoom;
+import com.doctor.appointment.service.DoctorBookingSequencer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,29 +26,56 @@ public class AppointmentReservationController {
     @Autowired
     private AppointmentReservationService reservationService;
 
+    @Autowired
+    private DoctorBookingSequencer bookingSequencer;
+
+    @Autowired
+    private BookingWaitingRoom waitingRoom;
+
     /**
      * Reserve a slot temporarily for payment process
      * POST /api/appointments/reservations/reserve/{appointmentId}/patient/{patientId}
+     * Requires an X-Admission-Token while the doctor's waiting room is open
      */
     @PostMapping("/reserve/{appointmentId}/patient/{patientId}")
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<?> reserveSlot(
             @PathVariable int appointmentId,
-            @PathVariable int patientId) {
+            @PathVariable int patientId,
+            @RequestHeader(value = BookingWaitingRoom.ADMISSION_TOKEN_HEADER, required = false) String admissionToken) {
+        
+        try {
+            waitingRoom.verifyAdmission(appointmentId, patientId, admissionToken);
+        } catch (AdmissionRequiredException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            response.put("error", "ADMISSION_REQUIRED");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
         
-        boolean reserved = reservationService.reserveSlot(appointmentId, patientId);
+        ReservationOutcome outcome = bookingSequencer.reserve(appointmentId, patientId,
+                () -> reservationService.reserveSlot(appointmentId, patientId));
         
         Map<String, Object> response = new HashMap<>();
+        response.put("outcome", outcome);
         
-        if (reserved) {
+        if (outcome == ReservationOutcome.RESERVED) {
             response.put("success", true);
             response.put("message", "Slot reserved successfully. Complete payment within 5 minutes.");
             response.put("appointmentId", appointmentId);
             response.put("reservationDurationMinutes", 5);
             return ResponseEntity.ok(response);
+        } else if (outcome == ReservationOutcome.NOT_FOUND) {
+            response.put("success", false);
+            response.put("message", "Appointment slot not found.");
+            response.put("error", "SLOT_NOT_FOUND");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         } else {
             response.put("success", false);
-            response.put("message", "This slot is currently reserved by another user or already booked. Please select another slot.");
+            response.put("message", outcome == ReservationOutcome.ALREADY_BOOKED
+                    ? "This slot is already booked. Please select another slot."
+                    : "This slot is currently reserved by another user. Please select another slot.");
             response.put("error", "SLOT_UNAVAILABLE");
             return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         }
@@ -60,23 +91,19 @@ public class AppointmentReservationController {
             @PathVariable int appointmentId,
             @PathVariable int patientId) {
         
-        try {
-            reservationService.releaseReservation(appointmentId, patientId);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Reservation released successfully.");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            // If appointment was already booked or deleted, consider it a success
-            // since the goal (slot no longer reserved) is achieved
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Reservation already released or slot was booked.");
-            
-            return ResponseEntity.ok(response);
-        }
+        ReservationOutcome outcome = bookingSequencer.release(appointmentId, patientId,
+                () -> reservationService.releaseReservation(appointmentId, patientId));
+        
+        // If the slot was already booked, deleted or not held by this patient, consider it a success
+        // since the goal (this patient no longer holds the slot) is achieved
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("outcome", outcome);
+        response.put("message", outcome == ReservationOutcome.RELEASED
+                ? "Reservation released successfully."
+                : "Reservation already released or slot was booked.");
+        
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -89,10 +116,12 @@ public class AppointmentReservationController {
             @PathVariable int appointmentId,
             @PathVariable int patientId) {
         
-        boolean available = reservationService.isSlotAvailable(appointmentId, patientId);
+        ReservationOutcome state = reservationService.checkSlot(appointmentId, patientId);
+        boolean available = state == ReservationOutcome.AVAILABLE || state == ReservationOutcome.RESERVED;
         
         Map<String, Object> response = new HashMap<>();
         response.put("available", available);
+        response.put("outcome", state);
         response.put("appointmentId", appointmentId);
         
         if (available) {
@@ -111,10 +140,11 @@ public class AppointmentReservationController {
     @PostMapping("/cleanup")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> cleanupExpiredReservations() {
-        reservationService.cleanupExpiredReservations();
+        int released = reservationService.cleanupExpiredReservations();
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
+        response.put("released", released);
         response.put("message", "Expired reservations cleaned up successfully.");
         
         return ResponseEntity.ok(response);
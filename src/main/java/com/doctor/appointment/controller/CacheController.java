@@ -0,0 +1,47 @@
+package com.doctor.appointment.controller;
+
+import com.doctor.appointment.service.CacheStatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache Management", description = "APIs for inspecting and clearing the second-level entity cache")
+public class CacheController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @Operation(summary = "Get cache statistics",
+            description = "Returns hit, miss and put counts of the second-level and query caches, overall and per region")
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(cacheStatisticsService.getStats());
+    }
+
+    @Operation(summary = "Reset cache statistics", description = "Sets all counters back to zero; cached data is kept")
+    @DeleteMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> resetStats() {
+        cacheStatisticsService.resetStats();
+        return ResponseEntity.ok(Map.of("message", "Cache statistics reset"));
+    }
+
+    @Operation(summary = "Evict all cached entities",
+            description = "Drops every second-level and query cache region. Only needed after rows were changed " +
+                    "outside the application, since the application's own writes keep the cache current")
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> evictAll() {
+        cacheStatisticsService.evictAll();
+        return ResponseEntity.ok(Map.of("message", "Cache cleared"));
+    }
+}
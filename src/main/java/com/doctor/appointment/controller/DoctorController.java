@@ -2,10 +2,15 @@ package com.doctor.appointment.controller;
 
 import com.doctor.appointment.model.DTO.DoctorCreateDTO;
 import com.doctor.appointment.model.DTO.DoctorDTO;
+import com.doctor.appointment.service.DoctorDirectory;
 import com.doctor.appointment.service.DoctorService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -19,16 +24,50 @@ public class DoctorController {
     @Autowired
     private DoctorService doctorService;
 
+    @Autowired
+    private DoctorDirectory doctorDirectory;
+
+    // Directory reads come from the in-memory snapshot; its version is the ETag, so a client
+    // sending If-None-Match gets 304 until a doctor, user or specialization changes
     @GetMapping("/")
     @PreAuthorize("permitAll()")
-    public List<DoctorDTO> findAll() {
-        return doctorService.findAll();
+    public ResponseEntity<List<DoctorDTO>> findAll(WebRequest request) {
+        DoctorDirectory.Snapshot snapshot = doctorDirectory.snapshot();
+        if (request.checkNotModified(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.doctors());
     }
 
     @GetMapping("/{doctorId}")
     @PreAuthorize("permitAll()")
-    public DoctorDTO getDoctor(@PathVariable int doctorId) {
-        return doctorService.findById(doctorId);
+    public ResponseEntity<DoctorDTO> getDoctor(@PathVariable int doctorId, WebRequest request) {
+        DoctorDirectory.Snapshot snapshot = doctorDirectory.snapshot();
+        DoctorDTO doctor = snapshot.findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found: " + doctorId));
+        if (request.checkNotModified(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(doctor);
+    }
+
+    @GetMapping("/specialization/{name}")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<List<DoctorDTO>> findBySpecialization(@PathVariable String name, WebRequest request) {
+        DoctorDirectory.Snapshot snapshot = doctorDirectory.snapshot();
+        if (request.checkNotModified(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.findBySpecialization(name));
     }
 
     @GetMapping("/user/{userId}")
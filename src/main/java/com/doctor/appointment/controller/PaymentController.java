@@ -1,9 +1,17 @@
 package com.doctor.appointment.controller;
 
+import com.doctor.appointment.exception.AdmissionRequiredException;
+import com.doctor.appointment.exception.BookingQueueBusyException;
+import com.doctor.appointment.exception.SlotConflictException;
 import com.doctor.appointment.model.DTO.BookingResponseDTO;
 import com.doctor.appointment.model.DTO.BookingWithPaymentDTO;
 import com.doctor.appointment.model.DTO.PaymentCreateDTO;
 import com.doctor.appointment.model.DTO.PaymentDTO;
+import com.doctor.appointment.model.DTO.SeriesBookingRequestDTO;
+import com.doctor.appointment.model.DTO.SeriesBookingResponseDTO;
+import com.doctor.appointment.service.BookingWaitingRoom;
+import com.doctor.appointment.service.DoctorBookingSequencer;
+import com.doctor.appointment.service.IdempotencyService;
 import com.doctor.appointment.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -34,34 +42,75 @@ public class PaymentController {
     private static final Logger logger = LoggerFactory.getLogger(PaymentController.class);
     
     private final PaymentService paymentService;
+    private final DoctorBookingSequencer bookingSequencer;
+    private final BookingWaitingRoom waitingRoom;
+    private final IdempotencyService idempotencyService;
+    
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     
     @Operation(summary = "Book appointment with payment", 
-               description = "Books an appointment and processes payment in a single atomic transaction. Prevents double bookings using optimistic locking.")
+               description = "Books an appointment and processes payment in a single atomic transaction. Prevents double bookings using optimistic locking. " +
+                       "Retries carrying the same Idempotency-Key replay the first response instead of booking again.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Appointment booked and payment processed successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input or slot not available"),
             @ApiResponse(responseCode = "409", description = "Slot was booked by another user (race condition)"),
             @ApiResponse(responseCode = "401", description = "Not authorized"),
-            @ApiResponse(responseCode = "403", description = "Forbidden")
+            @ApiResponse(responseCode = "403", description = "Forbidden, or no valid admission token while the doctor's waiting room is open"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different request")
     })
     @PostMapping("/book-with-payment")
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<?> bookAppointmentWithPayment(
             @Parameter(description = "Booking and payment details", required = true,
                     content = @Content(schema = @Schema(implementation = BookingWithPaymentDTO.class)))
-            @Valid @RequestBody BookingWithPaymentDTO bookingWithPaymentDTO) {
+            @Valid @RequestBody BookingWithPaymentDTO bookingWithPaymentDTO,
+            @Parameter(description = "Admission token from the doctor's waiting room, when it is open")
+            @RequestHeader(value = BookingWaitingRoom.ADMISSION_TOKEN_HEADER, required = false) String admissionToken,
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         
+        return idempotencyService.execute("book-with-payment", idempotencyKey, bookingWithPaymentDTO,
+                () -> bookWithPayment(bookingWithPaymentDTO, admissionToken));
+    }
+    
+    private ResponseEntity<?> bookWithPayment(BookingWithPaymentDTO bookingWithPaymentDTO, String admissionToken) {
         try {
+            waitingRoom.verifyAdmission(bookingWithPaymentDTO.getAppointmentId(),
+                    bookingWithPaymentDTO.getPatientId(), admissionToken);
+            
             logger.info("Processing booking with payment for appointment ID: {} and patient ID: {}", 
                        bookingWithPaymentDTO.getAppointmentId(), bookingWithPaymentDTO.getPatientId());
             
-            BookingResponseDTO response = paymentService.bookAppointmentWithPayment(bookingWithPaymentDTO);
+            BookingResponseDTO response = bookingSequencer.book(bookingWithPaymentDTO.getAppointmentId(),
+                    bookingWithPaymentDTO.getPatientId(),
+                    () -> paymentService.bookAppointmentWithPayment(bookingWithPaymentDTO));
             
             logger.info("Successfully processed booking with payment for appointment ID: {}", 
                        bookingWithPaymentDTO.getAppointmentId());
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
             
+        } catch (AdmissionRequiredException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of(
+                        "message", e.getMessage(),
+                        "error", "ADMISSION_REQUIRED"
+                    ));
+        } catch (SlotConflictException e) {
+            logger.info("Booking conflict for appointment ID {}: {}", bookingWithPaymentDTO.getAppointmentId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of(
+                        "message", e.getMessage(),
+                        "error", "SLOT_UNAVAILABLE"
+                    ));
+        } catch (BookingQueueBusyException e) {
+            // Never applied; only successful responses are stored, so a retry with the same Idempotency-Key runs again
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of(
+                        "message", e.getMessage(),
+                        "error", "BOOKING_QUEUE_BUSY"
+                    ));
         } catch (RuntimeException e) {
             logger.error("Error processing booking with payment: {}", e.getMessage());
             
@@ -90,28 +139,87 @@ public class PaymentController {
         }
     }
     
+    @Operation(summary = "Book a recurring series with one payment",
+               description = "Books the same time every intervalWeeks weeks for the given number of occurrences, " +
+                       "all or nothing, in one transaction with one aggregated payment attached to the first appointment. " +
+                       "Retries carrying the same Idempotency-Key replay the first response.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Series booked and payment processed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input, or an occurrence falls outside working hours or on leave"),
+            @ApiResponse(responseCode = "409", description = "At least one occurrence has no free slot; nothing was booked"),
+            @ApiResponse(responseCode = "403", description = "Forbidden, or no valid admission token while the doctor's waiting room is open"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different request")
+    })
+    @PostMapping("/book-series")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<?> bookSeriesWithPayment(
+            @Parameter(description = "Recurrence, patient and payment details", required = true,
+                    content = @Content(schema = @Schema(implementation = SeriesBookingRequestDTO.class)))
+            @Valid @RequestBody SeriesBookingRequestDTO seriesBookingRequestDTO,
+            @Parameter(description = "Admission token from the doctor's waiting room, when it is open")
+            @RequestHeader(value = BookingWaitingRoom.ADMISSION_TOKEN_HEADER, required = false) String admissionToken,
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        
+        return idempotencyService.execute("book-series", idempotencyKey, seriesBookingRequestDTO, () -> {
+            try {
+                waitingRoom.verifyDoctorAdmission(seriesBookingRequestDTO.getDoctorId(),
+                        seriesBookingRequestDTO.getPatientId(), admissionToken);
+                
+                SeriesBookingResponseDTO response = paymentService.bookSeriesWithPayment(seriesBookingRequestDTO);
+                return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            } catch (AdmissionRequiredException e) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "ADMISSION_REQUIRED"
+                        ));
+            } catch (SlotConflictException e) {
+                logger.info("Series booking conflict for doctor ID {}: {}", seriesBookingRequestDTO.getDoctorId(), e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "SLOT_UNAVAILABLE"
+                        ));
+            } catch (RuntimeException e) {
+                logger.error("Error booking series: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "BOOKING_FAILED"
+                        ));
+            }
+        });
+    }
+    
     @Operation(summary = "Process payment for an existing appointment", 
-               description = "Creates a payment record for an already booked appointment")
+               description = "Creates a payment record for an already booked appointment. " +
+                       "Retries carrying the same Idempotency-Key replay the first response.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Payment processed successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input or payment already exists"),
-            @ApiResponse(responseCode = "404", description = "Appointment not found")
+            @ApiResponse(responseCode = "404", description = "Appointment not found"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different request")
     })
     @PostMapping
     @PreAuthorize("hasRole('PATIENT') or hasRole('ADMIN')")
     public ResponseEntity<?> processPayment(
             @Parameter(description = "Payment details", required = true,
                     content = @Content(schema = @Schema(implementation = PaymentCreateDTO.class)))
-            @Valid @RequestBody PaymentCreateDTO paymentCreateDTO) {
+            @Valid @RequestBody PaymentCreateDTO paymentCreateDTO,
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         
-        try {
-            PaymentDTO payment = paymentService.processPayment(paymentCreateDTO);
-            return ResponseEntity.status(HttpStatus.CREATED).body(payment);
-        } catch (RuntimeException e) {
-            logger.error("Error processing payment: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", e.getMessage()));
-        }
+        return idempotencyService.execute("process-payment", idempotencyKey, paymentCreateDTO, () -> {
+            try {
+                PaymentDTO payment = paymentService.processPayment(paymentCreateDTO);
+                return ResponseEntity.status(HttpStatus.CREATED).body(payment);
+            } catch (RuntimeException e) {
+                logger.error("Error processing payment: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("message", e.getMessage()));
+            }
+        });
     }
     
     @Operation(summary = "Get payment by ID", description = "Returns payment details by payment ID")
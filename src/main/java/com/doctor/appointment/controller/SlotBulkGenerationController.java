@@ -0,0 +1,62 @@
+package com.doctor.appointment.controller;
+
+import com.doctor.appointment.model.DTO.SlotBulkGenerationJobDTO;
+import com.doctor.appointment.model.DTO.SlotBulkGenerationRequestDTO;
+import com.doctor.appointment.service.SlotBulkGenerationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/api/appointments/slots/bulk-generation")
+@RequiredArgsConstructor
+@Tag(name = "Bulk Slot Generation", description = "APIs for materializing appointment slots for many doctors at once")
+public class SlotBulkGenerationController {
+
+    private final SlotBulkGenerationService bulkGenerationService;
+
+    @Operation(summary = "Start a bulk slot generation job",
+            description = "Materializes AVAILABLE slots from working hours and leaves for the given doctors " +
+                    "(all doctors when none given) over a date range. Runs in the background; existing slots are skipped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job accepted"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range"),
+            @ApiResponse(responseCode = "401", description = "Not authorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startJob(@Valid @RequestBody SlotBulkGenerationRequestDTO request) {
+        try {
+            SlotBulkGenerationJobDTO job = bulkGenerationService.startJob(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", "Invalid input: " + e.getMessage(),
+                            "error", "IllegalArgumentException"
+                    ));
+        }
+    }
+
+    @Operation(summary = "Get bulk slot generation job status", description = "Returns the progress of a bulk slot generation job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved job status"),
+            @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SlotBulkGenerationJobDTO> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(bulkGenerationService.getJob(jobId));
+    }
+}
@@ -0,0 +1,121 @@
+package com.doctor.appointment.controller;
+
+import com.doctor.appointment.exception.ResourceNotFoundException;
+import com.doctor.appointment.model.DTO.WaitingRoomTicketDTO;
+import com.doctor.appointment.service.BookingWaitingRoom;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/api/waiting-room")
+@RequiredArgsConstructor
+@Tag(name = "Booking Waiting Room", description = "APIs for queueing patients during high-demand booking windows")
+public class WaitingRoomController {
+
+    private final BookingWaitingRoom waitingRoom;
+
+    @Operation(summary = "Open a doctor's waiting room",
+            description = "Until the given time, reserving or booking this doctor's slots requires an admission token " +
+                    "obtained through the queue. Opening an already open room moves its closing time.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Waiting room opened"),
+            @ApiResponse(responseCode = "400", description = "Invalid closing time or waiting room disabled")
+    })
+    @PostMapping("/doctor/{doctorId}/open")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> open(
+            @PathVariable int doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until) {
+        try {
+            waitingRoom.open(doctorId, until);
+            return ResponseEntity.ok(Map.of(
+                    "message", "Waiting room opened",
+                    "doctorId", doctorId,
+                    "until", until
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "WAITING_ROOM_NOT_OPENED"
+                    ));
+        }
+    }
+
+    @Operation(summary = "Close a doctor's waiting room", description = "Booking for the doctor goes back to unrestricted")
+    @DeleteMapping("/doctor/{doctorId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> close(@PathVariable int doctorId) {
+        waitingRoom.close(doctorId);
+        return ResponseEntity.ok(Map.of("message", "Waiting room closed", "doctorId", doctorId));
+    }
+
+    @Operation(summary = "Check whether a doctor's waiting room is open",
+            description = "Clients call this before reserving to know whether they need to queue")
+    @GetMapping("/doctor/{doctorId}")
+    public ResponseEntity<?> status(@PathVariable int doctorId) {
+        return ResponseEntity.ok(Map.of("doctorId", doctorId, "open", waitingRoom.isOpen(doctorId)));
+    }
+
+    @Operation(summary = "Join a doctor's queue",
+            description = "Returns a FIFO ticket with the current position. Joining again returns the same ticket.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ticket issued"),
+            @ApiResponse(responseCode = "404", description = "No open waiting room for this doctor"),
+            @ApiResponse(responseCode = "503", description = "Waiting room is full")
+    })
+    @PostMapping("/doctor/{doctorId}/patient/{patientId}/join")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<?> join(@PathVariable int doctorId, @PathVariable int patientId) {
+        try {
+            WaitingRoomTicketDTO ticket = waitingRoom.join(doctorId, patientId);
+            return ResponseEntity.ok(ticket);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "WAITING_ROOM_CLOSED"
+                    ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "5")
+                    .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "WAITING_ROOM_FULL"
+                    ));
+        }
+    }
+
+    @Operation(summary = "Poll a queue ticket",
+            description = "Returns the queue position and estimated wait, or the admission token once admitted. " +
+                    "Send the token as X-Admission-Token when reserving or booking. Tickets that stop polling are dropped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ticket state"),
+            @ApiResponse(responseCode = "404", description = "Ticket not found, dropped or its room closed")
+    })
+    @GetMapping("/tickets/{ticketId}/patient/{patientId}")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<?> poll(@PathVariable String ticketId, @PathVariable int patientId) {
+        try {
+            return ResponseEntity.ok(waitingRoom.poll(ticketId, patientId));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "TICKET_NOT_FOUND"
+                    ));
+        }
+    }
+}
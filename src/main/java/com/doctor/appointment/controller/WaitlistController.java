@@ -0,0 +1,76 @@
+package com.doctor.appointment.controller;
+
+import com.doctor.appointment.model.DTO.WaitlistEntryDTO;
+import com.doctor.appointment.model.DTO.WaitlistRequestDTO;
+import com.doctor.appointment.service.WaitlistService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/api/waitlist")
+@RequiredArgsConstructor
+@Tag(name = "Waitlist", description = "APIs for waiting on a doctor's slots and receiving offers when one frees up")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    @Operation(summary = "Join a doctor's waitlist",
+            description = "When a matching slot frees up (e.g. an appointment is cancelled) it is reserved for the " +
+                    "first waiting patient for a limited time; the offer shows up on the patient's waitlist entries.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Waitlist entry created"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range or time window")
+    })
+    @PostMapping
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<?> join(@Valid @RequestBody WaitlistRequestDTO request) {
+        try {
+            WaitlistEntryDTO entry = waitlistService.join(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(entry);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            "message", e.getMessage(),
+                            "error", "WAITLIST_JOIN_FAILED"
+                    ));
+        }
+    }
+
+    @Operation(summary = "Get a patient's waitlist entries",
+            description = "Entries with status OFFERED carry the reserved slot and the offer expiry; book it with " +
+                    "confirm-reservation or book-with-payment before it expires.")
+    @GetMapping("/patient/{patientId}")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('ADMIN')")
+    public ResponseEntity<List<WaitlistEntryDTO>> getByPatient(@PathVariable int patientId) {
+        return ResponseEntity.ok(waitlistService.getByPatient(patientId));
+    }
+
+    @Operation(summary = "Leave the waitlist", description = "A slot currently offered to the entry goes to the next patient")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Waitlist entry cancelled"),
+            @ApiResponse(responseCode = "400", description = "Entry not found or owned by another patient")
+    })
+    @DeleteMapping("/{entryId}/patient/{patientId}")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<?> cancel(@PathVariable long entryId, @PathVariable int patientId) {
+        try {
+            waitlistService.cancel(entryId, patientId);
+            return ResponseEntity.ok(Map.of("message", "Waitlist entry cancelled"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.doctor.appointment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a slot becomes bookable again, e.g. its appointment was cancelled and the
+ * time was reopened as a new AVAILABLE row, or a waitlist offer on it lapsed.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AppointmentSlotFreedEvent {
+
+    private final int doctorId;
+    private final int appointmentId;
+    private final LocalDateTime appointmentTime;
+}
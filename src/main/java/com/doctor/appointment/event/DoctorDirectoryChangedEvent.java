@@ -0,0 +1,28 @@
+package com.doctor.appointment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when data shown in the public doctor directory changes outside the doctor profile
+ * itself: a user account (which may belong to a doctor) or the specializations.
+ * Doctor profile changes are announced by DoctorScheduleChangedEvent with kind DOCTOR.
+ *
+ * userId is null when the whole directory is affected.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class DoctorDirectoryChangedEvent {
+
+    private final Integer userId;
+
+    public static DoctorDirectoryChangedEvent forUser(int userId) {
+        return new DoctorDirectoryChangedEvent(userId);
+    }
+
+    public static DoctorDirectoryChangedEvent everything() {
+        return new DoctorDirectoryChangedEvent(null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.doctor.appointment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/**
+ * Published whenever something that affects a doctor's bookable time changes:
+ * appointment rows, approved leaves, working hours or the doctor profile itself.
+ * Listeners that keep derived in-memory state (indexes, caches) use it to invalidate.
+ *
+ * fromDate/toDate bound the affected days; both are null when every day is affected.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class DoctorScheduleChangedEvent {
+
+    public enum Kind {
+        APPOINTMENTS,
+        LEAVES,
+        WORKING_HOURS,
+        DOCTOR
+    }
+
+    private final int doctorId;
+    private final Kind kind;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+
+    public static DoctorScheduleChangedEvent forDate(int doctorId, Kind kind, LocalDate date) {
+        return new DoctorScheduleChangedEvent(doctorId, kind, date, date);
+    }
+
+    public static DoctorScheduleChangedEvent allDates(int doctorId, Kind kind) {
+        return new DoctorScheduleChangedEvent(doctorId, kind, null, null);
+    }
+
+    /**
+     * @return true if the given day falls inside the affected range
+     */
+    public boolean affects(LocalDate date) {
+        return (fromDate == null || !date.isBefore(fromDate)) && (toDate == null || !date.isAfter(toDate));
+    }
+}
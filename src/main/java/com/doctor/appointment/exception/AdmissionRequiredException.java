@@ -0,0 +1,17 @@
+package com.doctor.appointment.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a doctor's waiting room is open and the request carries no valid admission token
+ */
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class AdmissionRequiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AdmissionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.doctor.appointment.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a booking command waited too long in its doctor's lane and was withdrawn unapplied
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BookingQueueBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BookingQueueBusyException(String message) {
+        super(message);
+    }
+}
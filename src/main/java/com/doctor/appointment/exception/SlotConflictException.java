@@ -0,0 +1,17 @@
+package com.doctor.appointment.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a slot cannot be booked or reserved because another patient got it first
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SlotConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SlotConflictException(String message) {
+        super(message);
+    }
+}
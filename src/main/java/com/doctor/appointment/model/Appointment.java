@@ -10,7 +10,13 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_doctor_time", columnList = "doctor_id, appointment_time"),
+        @Index(name = "idx_appointments_reservation_expires", columnList = "reservation_expires_at"),
+        @Index(name = "idx_appointments_series", columnList = "series_id"),
+        @Index(name = "idx_appointments_time_id", columnList = "appointment_time, id"),
+        @Index(name = "idx_appointments_patient_time", columnList = "patient_id, appointment_time, id")
+})
 public class Appointment {
 
     @Id
@@ -45,4 +51,13 @@ public class Appointment {
     @Column(name = "reservation_expires_at")
     private LocalDateTime reservationExpiresAt; // Reservation expiry time (e.g., 5 minutes)
 
+    // Set when the appointment was booked as part of a recurring series
+    @Column(name = "series_id", length = 36)
+    private String seriesId;
+
+    // Status history entries not yet copied to appointment_status_history, one JSON line each.
+    // Written only by the status-changing UPDATE queries and the history recorder.
+    @Column(name = "pending_history", columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String pendingHistory;
+
 }
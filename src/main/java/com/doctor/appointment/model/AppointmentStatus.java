@@ -1,9 +1,32 @@
 package com.doctor.appointment.model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum AppointmentStatus {
     AVAILABLE,  // Available slot created by doctor
     BOOKED,     // Booked by patient
     CONFIRMED,  // Confirmed by doctor
     CANCELLED,  // Cancelled by either party
-    COMPLETED   // Appointment completed
+    COMPLETED;  // Appointment completed
+
+    // Allowed status changes, built once
+    private static final Map<AppointmentStatus, Set<AppointmentStatus>> TRANSITIONS = new EnumMap<>(AppointmentStatus.class);
+
+    static {
+        TRANSITIONS.put(AVAILABLE, EnumSet.of(BOOKED));
+        TRANSITIONS.put(BOOKED, EnumSet.of(CONFIRMED, CANCELLED));
+        TRANSITIONS.put(CONFIRMED, EnumSet.of(CANCELLED, COMPLETED));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(AppointmentStatus.class));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(AppointmentStatus.class));
+    }
+
+    /**
+     * Whether an appointment in this status may move to the target status
+     */
+    public boolean canTransitionTo(AppointmentStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
 }
@@ -27,4 +27,7 @@ public class AppointmentDTO {
     private String reason;
     private AppointmentStatus status;
     private BigDecimal appointmentFee;
+    
+    // Recurring series the appointment was booked in, if any
+    private String seriesId;
 }
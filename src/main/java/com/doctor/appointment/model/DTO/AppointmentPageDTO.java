@@ -0,0 +1,20 @@
+package com.doctor.appointment.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of appointments in (appointmentTime, id) order. Pass nextCursor back as cursor
+ * to get the following page; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentPageDTO {
+    private List<AppointmentDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,37 @@
+package com.doctor.appointment.model.DTO;
+
+import com.doctor.appointment.model.AppointmentStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Moves many appointments to one status. Targets are either the listed appointment ids, or a
+ * doctor's appointments on a date, optionally only those currently in fromStatus.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateDTO {
+
+    private List<Integer> appointmentIds;
+
+    private Integer doctorId;
+
+    private LocalDate date;
+
+    private AppointmentStatus fromStatus;
+
+    @NotNull(message = "Status cannot be null")
+    private AppointmentStatus status;
+
+    // Optional: who triggered this change (e.g., "DOCTOR:12" or username)
+    private String changedBy;
+
+    // Optional note describing the reason for change
+    private String note;
+}
@@ -0,0 +1,36 @@
+package com.doctor.appointment.model.DTO;
+
+import com.doctor.appointment.model.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResultDTO {
+
+    public enum Outcome {
+        UPDATED,            // Moved to the requested status
+        UNCHANGED,          // Already in the requested status
+        INVALID_TRANSITION, // The current status cannot move to the requested one
+        CONFLICT,           // The status changed while the request was processed
+        NOT_FOUND
+    }
+
+    private AppointmentStatus status;
+    private int requested;
+    private int updated;
+    private List<Item> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int appointmentId;
+        private AppointmentStatus fromStatus; // Status before the request, null when not found
+        private Outcome outcome;
+    }
+}
@@ -0,0 +1,35 @@
+package com.doctor.appointment.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+
+    private Instant since; // When the counters started (startup or the last reset)
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private double hitRatio;
+    private long queryCacheHitCount;
+    private long queryCacheMissCount;
+    private List<Region> regions;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        private String name;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCount; // -1 when the provider does not report it
+        private double hitRatio;
+    }
+}
@@ -0,0 +1,20 @@
+package com.doctor.appointment.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Slot counts of one doctor-day, used by the month availability heatmap
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayAvailabilitySummaryDTO {
+    private LocalDate date;
+    private int freeSlots;
+    private int bookedSlots;
+    private int onLeaveSlots; // Slots of the day's working hours when the doctor is on leave
+}
@@ -0,0 +1,44 @@
+package com.doctor.appointment.model.DTO;
+
+import com.doctor.appointment.model.PaymentMethod;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Recurring booking: the same time every intervalWeeks weeks, starting at firstAppointmentTime
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeriesBookingRequestDTO {
+
+    @NotNull(message = "Doctor ID is required")
+    private Integer doctorId;
+
+    @NotNull(message = "Patient ID is required")
+    private Integer patientId;
+
+    @NotNull(message = "First appointment time is required")
+    private LocalDateTime firstAppointmentTime;
+
+    @Min(value = 1, message = "Interval must be at least 1 week")
+    @Max(value = 12, message = "Interval must be at most 12 weeks")
+    private int intervalWeeks = 1;
+
+    @Min(value = 2, message = "A series needs at least 2 appointments")
+    @Max(value = 26, message = "A series can have at most 26 appointments")
+    private int occurrences;
+
+    @NotNull(message = "Payment method is required")
+    private PaymentMethod paymentMethod;
+
+    private String cardDetails; // For card payments (last 4 digits)
+
+    private String notes;
+}
@@ -0,0 +1,18 @@
+package com.doctor.appointment.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeriesBookingResponseDTO {
+    private String seriesId;
+    private List<AppointmentDTO> appointments;
+    // One payment covering the whole series, attached to the first appointment
+    private PaymentDTO payment;
+    private String message;
+}
@@ -0,0 +1,27 @@
+package com.doctor.appointment.model.DTO;
+
+import com.doctor.appointment.model.SlotGenerationJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotBulkGenerationJobDTO {
+    private String jobId;
+    private SlotGenerationJobStatus status;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int totalDoctors;
+    private int processedDoctors;
+    private int failedDoctors;
+    private long slotsCreated;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+    private List<String> errors;
+}
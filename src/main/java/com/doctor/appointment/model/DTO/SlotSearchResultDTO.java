@@ -0,0 +1,24 @@
+package com.doctor.appointment.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One free slot returned by the cross-doctor earliest slot search
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotSearchResultDTO {
+    private int doctorId;
+    private String doctorName;
+    private String specialization;
+    private BigDecimal fee;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private int durationMinutes;
+}
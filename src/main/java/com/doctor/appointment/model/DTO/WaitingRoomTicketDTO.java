@@ -0,0 +1,23 @@
+package com.doctor.appointment.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitingRoomTicketDTO {
+    private String ticketId;
+    private Integer doctorId;
+    private Integer patientId;
+    private boolean admitted;
+    // Patients still ahead of this ticket; 0 once admitted
+    private long position;
+    private long estimatedWaitSeconds;
+    // Send as X-Admission-Token when reserving or booking; null until admitted
+    private String admissionToken;
+    private LocalDateTime tokenExpiresAt;
+}
@@ -0,0 +1,29 @@
+package com.doctor.appointment.model.DTO;
+
+import com.doctor.appointment.model.WaitlistStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistEntryDTO {
+    private Long id;
+    private int doctorId;
+    private int patientId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private LocalTime earliestTime;
+    private LocalTime latestTime;
+    private WaitlistStatus status;
+    private LocalDateTime createdAt;
+    // When OFFERED: the reserved slot to book (confirm-reservation or book-with-payment) before the offer expires
+    private Integer offeredAppointmentId;
+    private LocalDateTime offeredAppointmentTime;
+    private LocalDateTime offerExpiresAt;
+}
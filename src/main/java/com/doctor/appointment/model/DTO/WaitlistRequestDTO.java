@@ -0,0 +1,32 @@
+package com.doctor.appointment.model.DTO;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistRequestDTO {
+
+    @NotNull(message = "Doctor ID is required")
+    private Integer doctorId;
+
+    @NotNull(message = "Patient ID is required")
+    private Integer patientId;
+
+    @NotNull(message = "From date is required")
+    private LocalDate fromDate;
+
+    @NotNull(message = "To date is required")
+    private LocalDate toDate;
+
+    // Time window within each day; the whole day when not given
+    private LocalTime earliestTime;
+
+    private LocalTime latestTime;
+}
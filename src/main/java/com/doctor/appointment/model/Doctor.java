@@ -1,6 +1,8 @@
 package com.doctor.appointment.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +14,8 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctor")
 @Table(name = "doctors")
 public class Doctor {
 
@@ -40,6 +44,7 @@ public class Doctor {
 
     // New: Many-to-many relationship to support multiple specializations per doctor
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctor-specializations")
     @JoinTable(
         name = "doctor_specializations",
         joinColumns = @JoinColumn(name = "doctor_id"),
@@ -0,0 +1,13 @@
+package com.doctor.appointment.model;
+
+/**
+ * Result of a single-statement reservation operation on an appointment slot
+ */
+public enum ReservationOutcome {
+    RESERVED,        // The patient now holds (or already held) the reservation
+    AVAILABLE,       // Free and not held by anyone
+    RELEASED,        // The patient's reservation was released
+    HELD_BY_OTHER,   // Another patient holds a live reservation
+    ALREADY_BOOKED,  // The slot is booked or no longer AVAILABLE
+    NOT_FOUND        // No such appointment
+}
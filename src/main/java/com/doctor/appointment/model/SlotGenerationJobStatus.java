@@ -0,0 +1,11 @@
+package com.doctor.appointment.model;
+
+/**
+ * Lifecycle of a bulk slot generation job
+ */
+public enum SlotGenerationJobStatus {
+    QUEUED,     // Accepted, no doctor processed yet
+    RUNNING,    // Doctors are being processed
+    COMPLETED,  // Every doctor processed successfully
+    FAILED      // Finished, but at least one doctor failed
+}
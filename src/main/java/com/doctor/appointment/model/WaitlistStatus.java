@@ -0,0 +1,12 @@
+package com.doctor.appointment.model;
+
+/**
+ * Enum representing the state of a waitlist entry
+ */
+public enum WaitlistStatus {
+    WAITING,    // Waiting for a matching slot to free up
+    OFFERED,    // A freed slot is reserved for the patient until the offer expires
+    FULFILLED,  // The patient booked the offered slot
+    EXPIRED,    // The date range passed or the offer lapsed without a booking
+    CANCELLED   // Withdrawn by the patient
+}
@@ -1,6 +1,8 @@
 package com.doctor.appointment.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +15,8 @@ import java.time.LocalTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "working-hour")
 @Table(name = "doctor_working_hours",
        uniqueConstraints = {
            @UniqueConstraint(name = "uk_doctor_day_seq", columnNames = {"doctor_id", "day_of_week", "sequence"})
@@ -1,39 +1,308 @@
 package com.doctor.appointment.repository;
 
 import com.doctor.appointment.model.Appointment;
+import com.doctor.appointment.model.DTO.AppointmentDTO;
 import com.doctor.appointment.model.AppointmentStatus;
+import com.doctor.appointment.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Integer> {
-    
-    // Find appointments by doctor ID
-    List<Appointment> findByDoctorId(int doctorId);
+
+    // Flat AppointmentDTO rows with doctor and patient names joined in, so list endpoints run one
+    // query instead of loading each row's doctor, patient and users. Like the entity mapping, a doctor
+    // or patient without a user row is named "Unknown", and a row without a patient has no patient name.
+    String APPOINTMENT_DTO_SELECT = "SELECT new com.doctor.appointment.model.DTO.AppointmentDTO(" +
+            "a.id, COALESCE(d.id, 0), CASE WHEN d.id IS NOT NULL THEN COALESCE(du.name, 'Unknown') END, " +
+            "d.specialization, COALESCE(p.id, 0), CASE WHEN p.id IS NOT NULL THEN COALESCE(pu.name, 'Unknown') END, " +
+            "a.appointmentTime, a.reason, a.status, a.appointmentFee, a.seriesId) " +
+            "FROM Appointment a LEFT JOIN a.doctor d LEFT JOIN d.user du LEFT JOIN a.patient p LEFT JOIN p.user pu ";
+
+    @Query(APPOINTMENT_DTO_SELECT + "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findAllDTOs();
+
+    @Query(APPOINTMENT_DTO_SELECT + "WHERE d.id = :doctorId ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findDTOsByDoctorId(@Param("doctorId") int doctorId);
+
+    @Query(APPOINTMENT_DTO_SELECT + "WHERE d.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end " +
+           "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findDTOsByDoctorIdAndTimeBetween(@Param("doctorId") int doctorId,
+                                                          @Param("start") LocalDateTime start,
+                                                          @Param("end") LocalDateTime end);
+
+    @Query(APPOINTMENT_DTO_SELECT + "WHERE d.id = :doctorId AND a.status = :status " +
+           "AND a.appointmentTime BETWEEN :start AND :end ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findDTOsByDoctorIdAndStatusAndTimeBetween(@Param("doctorId") int doctorId,
+                                                                   @Param("status") AppointmentStatus status,
+                                                                   @Param("start") LocalDateTime start,
+                                                                   @Param("end") LocalDateTime end);
+
+    @Query(APPOINTMENT_DTO_SELECT + "WHERE p.id = :patientId ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findDTOsByPatientId(@Param("patientId") int patientId);
     
     // Find appointments by doctor ID and appointment time between start and end
     List<Appointment> findByDoctorIdAndAppointmentTimeBetween(
             int doctorId, 
             LocalDateTime start, 
             LocalDateTime end);
-    
-    // Find appointments by doctor ID, status, and appointment time between start and end
-    List<Appointment> findByDoctorIdAndStatusAndAppointmentTimeBetween(
-            int doctorId,
-            AppointmentStatus status,
-            LocalDateTime start, 
-            LocalDateTime end);
-            
-    // Find appointments by patient ID
-    List<Appointment> findByPatientId(int patientId);
-
-    // Fetch all appointments with patient and doctor eagerly to avoid lazy loading issues
-    @EntityGraph(attributePaths = {"patient", "doctor"})
-    @Query("SELECT a FROM Appointment a")
-    List<Appointment> findAllWithPatientAndDoctor();
+
+    // Days in [from, to) on which each doctor still has AVAILABLE slots: [doctorId, day]
+    @Query(value = "SELECT DISTINCT a.doctor_id, CAST(a.appointment_time AS date) AS day " +
+                   "FROM appointments a " +
+                   "WHERE a.status = 'AVAILABLE' AND a.appointment_time >= :from AND a.appointment_time < :to",
+           nativeQuery = true)
+    List<Object[]> findAvailableDaysPerDoctor(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Distinct start times (second of day) of a doctor's occupying (not AVAILABLE, not CANCELLED) appointments per day: [day, secondOfDay]
+    @Query(value = "SELECT DISTINCT CAST(a.appointment_time AS date) AS day, " +
+                   "CAST(EXTRACT(EPOCH FROM CAST(a.appointment_time AS time)) AS integer) AS second_of_day " +
+                   "FROM appointments a " +
+                   "WHERE a.doctor_id = :doctorId AND a.status NOT IN ('AVAILABLE', 'CANCELLED') " +
+                   "AND a.appointment_time >= :from AND a.appointment_time < :to",
+           nativeQuery = true)
+    List<Object[]> findOccupiedStartsPerDay(@Param("doctorId") int doctorId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    // Compare-and-set booking: AVAILABLE -> BOOKED for the patient unless another patient holds a live reservation.
+    // Returns 1 when the slot was booked, 0 when it was taken (or does not exist).
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = com.doctor.appointment.model.AppointmentStatus.BOOKED, " +
+           "a.patient = :patient, a.reservedByPatientId = NULL, a.reservationExpiresAt = NULL, " +
+           "a.appointmentFee = COALESCE(a.appointmentFee, (SELECT d.fee FROM Doctor d WHERE d.id = a.doctor.id)), " +
+           "a.pendingHistory = CONCAT(COALESCE(a.pendingHistory, ''), :historyLine), " +
+           "a.version = COALESCE(a.version, 0) + 1 " +
+           "WHERE a.id = :appointmentId " +
+           "AND a.status = com.doctor.appointment.model.AppointmentStatus.AVAILABLE " +
+           "AND (a.reservedByPatientId IS NULL OR a.reservedByPatientId = :#{#patient.id} " +
+           "OR a.reservationExpiresAt < :now)")
+    int bookIfAvailable(@Param("appointmentId") int appointmentId,
+                        @Param("patient") Patient patient,
+                        @Param("now") LocalDateTime now,
+                        @Param("historyLine") String historyLine);
+
+    // All-or-nothing series booking: books every listed slot that is AVAILABLE and not held by another patient.
+    // The caller compares the count with the number of ids and rolls back on a shortfall.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = com.doctor.appointment.model.AppointmentStatus.BOOKED, " +
+           "a.patient = :patient, a.seriesId = :seriesId, a.reservedByPatientId = NULL, a.reservationExpiresAt = NULL, " +
+           "a.appointmentFee = COALESCE(a.appointmentFee, (SELECT d.fee FROM Doctor d WHERE d.id = a.doctor.id)), " +
+           "a.version = COALESCE(a.version, 0) + 1 " +
+           "WHERE a.id IN :appointmentIds " +
+           "AND a.status = com.doctor.appointment.model.AppointmentStatus.AVAILABLE " +
+           "AND (a.reservedByPatientId IS NULL OR a.reservedByPatientId = :#{#patient.id} " +
+           "OR a.reservationExpiresAt < :now)")
+    int bookSeriesIfAvailable(@Param("appointmentIds") List<Integer> appointmentIds,
+                              @Param("patient") Patient patient,
+                              @Param("seriesId") String seriesId,
+                              @Param("now") LocalDateTime now);
+
+    // Materialized slot rows of a doctor at exact start times
+    @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentTime IN :times " +
+           "AND a.status = com.doctor.appointment.model.AppointmentStatus.AVAILABLE")
+    List<Appointment> findAvailableByDoctorIdAndTimes(@Param("doctorId") int doctorId,
+                                                      @Param("times") List<LocalDateTime> times);
+
+    List<Appointment> findBySeriesIdOrderByAppointmentTimeAsc(String seriesId);
+
+    // Compare-and-set confirmation: AVAILABLE -> BOOKED only while the patient holds a live reservation
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = com.doctor.appointment.model.AppointmentStatus.BOOKED, " +
+           "a.patient = :patient, a.reservedByPatientId = NULL, a.reservationExpiresAt = NULL, " +
+           "a.appointmentFee = COALESCE(a.appointmentFee, (SELECT d.fee FROM Doctor d WHERE d.id = a.doctor.id)), " +
+           "a.pendingHistory = CONCAT(COALESCE(a.pendingHistory, ''), :historyLine), " +
+           "a.version = COALESCE(a.version, 0) + 1 " +
+           "WHERE a.id = :appointmentId " +
+           "AND a.status = com.doctor.appointment.model.AppointmentStatus.AVAILABLE " +
+           "AND a.reservedByPatientId = :#{#patient.id} " +
+           "AND (a.reservationExpiresAt IS NULL OR a.reservationExpiresAt >= :now)")
+    int bookIfReservedBy(@Param("appointmentId") int appointmentId,
+                         @Param("patient") Patient patient,
+                         @Param("now") LocalDateTime now,
+                         @Param("historyLine") String historyLine);
+
+    // Compare-and-set status change that also appends the transition to the history outbox.
+    // Returns 0 when the appointment is no longer in the expected status.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = :toStatus, " +
+           "a.pendingHistory = CONCAT(COALESCE(a.pendingHistory, ''), :historyLine), " +
+           "a.version = COALESCE(a.version, 0) + 1 " +
+           "WHERE a.id = :appointmentId AND a.status = :fromStatus")
+    int transitionStatus(@Param("appointmentId") int appointmentId,
+                         @Param("fromStatus") AppointmentStatus fromStatus,
+                         @Param("toStatus") AppointmentStatus toStatus,
+                         @Param("historyLine") String historyLine);
+
+    // Current status of each listed appointment as (id, status, doctorId, appointmentTime)
+    @Query("SELECT a.id, a.status, a.doctor.id, a.appointmentTime FROM Appointment a WHERE a.id IN :ids")
+    List<Object[]> findStatusRows(@Param("ids") List<Integer> ids);
+
+    // Current status of a doctor's appointments in a time range as (id, status, doctorId, appointmentTime)
+    @Query("SELECT a.id, a.status, a.doctor.id, a.appointmentTime FROM Appointment a " +
+           "WHERE a.doctor.id = :doctorId AND a.appointmentTime >= :from AND a.appointmentTime < :to " +
+           "ORDER BY a.appointmentTime, a.id")
+    List<Object[]> findStatusRowsByDoctorAndTimeRange(@Param("doctorId") int doctorId,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+
+    // Set-based status change: moves the listed appointments still in fromStatus and returns their ids
+    @Transactional
+    @Query(value = "WITH updated AS (" +
+                   "  UPDATE appointments SET status = :toStatus, version = COALESCE(version, 0) + 1 " +
+                   "  WHERE id IN (:ids) AND status = :fromStatus " +
+                   "  RETURNING id) " +
+                   "SELECT id FROM updated",
+           nativeQuery = true)
+    List<Integer> transitionStatuses(@Param("ids") List<Integer> ids,
+                                     @Param("fromStatus") String fromStatus,
+                                     @Param("toStatus") String toStatus);
+
+    // Appointments with status history entries not yet copied to appointment_status_history
+    @Query(value = "SELECT id, pending_history FROM appointments WHERE pending_history IS NOT NULL LIMIT :limit",
+           nativeQuery = true)
+    List<Object[]> findPendingHistory(@Param("limit") int limit);
+
+    // Reserve a free slot for the patient in one statement and report the outcome (a ReservationOutcome name).
+    // An unreserved slot, the patient's own hold or an expired hold can be (re)reserved.
+    @Transactional
+    @Query(value = "WITH target AS (" +
+                   "  SELECT status, patient_id FROM appointments WHERE id = :appointmentId), " +
+                   "updated AS (" +
+                   "  UPDATE appointments SET reserved_by_patient_id = :patientId, reservation_expires_at = :expiresAt, " +
+                   "  version = COALESCE(version, 0) + 1 " +
+                   "  WHERE id = :appointmentId AND status = 'AVAILABLE' AND patient_id IS NULL " +
+                   "  AND (reserved_by_patient_id IS NULL OR reserved_by_patient_id = :patientId " +
+                   "       OR reservation_expires_at IS NULL OR reservation_expires_at < :now) " +
+                   "  RETURNING id) " +
+                   "SELECT CASE " +
+                   "  WHEN EXISTS (SELECT 1 FROM updated) THEN 'RESERVED' " +
+                   "  WHEN NOT EXISTS (SELECT 1 FROM target) THEN 'NOT_FOUND' " +
+                   "  WHEN EXISTS (SELECT 1 FROM target WHERE status <> 'AVAILABLE' OR patient_id IS NOT NULL) " +
+                   "    THEN 'ALREADY_BOOKED' " +
+                   "  ELSE 'HELD_BY_OTHER' END",
+           nativeQuery = true)
+    String reserveSlot(@Param("appointmentId") int appointmentId,
+                       @Param("patientId") int patientId,
+                       @Param("now") LocalDateTime now,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Release the patient's reservation in one statement and report the outcome (a ReservationOutcome name)
+    @Transactional
+    @Query(value = "WITH target AS (" +
+                   "  SELECT status, patient_id, reserved_by_patient_id FROM appointments WHERE id = :appointmentId), " +
+                   "updated AS (" +
+                   "  UPDATE appointments SET reserved_by_patient_id = NULL, reservation_expires_at = NULL, " +
+                   "  version = COALESCE(version, 0) + 1 " +
+                   "  WHERE id = :appointmentId AND patient_id IS NULL AND reserved_by_patient_id = :patientId " +
+                   "  RETURNING id) " +
+                   "SELECT CASE " +
+                   "  WHEN EXISTS (SELECT 1 FROM updated) THEN 'RELEASED' " +
+                   "  WHEN NOT EXISTS (SELECT 1 FROM target) THEN 'NOT_FOUND' " +
+                   "  WHEN EXISTS (SELECT 1 FROM target WHERE status <> 'AVAILABLE' OR patient_id IS NOT NULL) " +
+                   "    THEN 'ALREADY_BOOKED' " +
+                   "  WHEN EXISTS (SELECT 1 FROM target WHERE reserved_by_patient_id IS NULL) THEN 'AVAILABLE' " +
+                   "  ELSE 'HELD_BY_OTHER' END",
+           nativeQuery = true)
+    String releaseReservation(@Param("appointmentId") int appointmentId,
+                              @Param("patientId") int patientId);
+
+    // Reservation state of a slot as seen by the patient (a ReservationOutcome name), or null if not found
+    @Query(value = "SELECT CASE " +
+                   "  WHEN status <> 'AVAILABLE' OR patient_id IS NOT NULL THEN 'ALREADY_BOOKED' " +
+                   "  WHEN reserved_by_patient_id IS NULL OR reservation_expires_at IS NULL " +
+                   "       OR reservation_expires_at < :now THEN 'AVAILABLE' " +
+                   "  WHEN reserved_by_patient_id = :patientId THEN 'RESERVED' " +
+                   "  ELSE 'HELD_BY_OTHER' END " +
+                   "FROM appointments WHERE id = :appointmentId",
+           nativeQuery = true)
+    String findReservationState(@Param("appointmentId") int appointmentId,
+                                @Param("patientId") int patientId,
+                                @Param("now") LocalDateTime now);
+
+    // Release up to :batchSize expired reservations, oldest first, skipping rows locked by in-flight bookings.
+    // Uses idx_appointments_reservation_expires; returns the number of rows released.
+    // Native updates name the table they touch, otherwise Hibernate evicts every second-level cache region.
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointments"))
+    @Query(value = "UPDATE appointments SET reserved_by_patient_id = NULL, reservation_expires_at = NULL, " +
+                   "version = COALESCE(version, 0) + 1 " +
+                   "WHERE id IN (SELECT id FROM appointments WHERE reservation_expires_at < :now " +
+                   "ORDER BY reservation_expires_at LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+           nativeQuery = true)
+    int releaseExpiredReservations(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    // Release one patient's hold if it has expired (fired by the reservation expiry wheel)
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointments"))
+    @Query(value = "UPDATE appointments SET reserved_by_patient_id = NULL, reservation_expires_at = NULL, " +
+                   "version = COALESCE(version, 0) + 1 " +
+                   "WHERE id = :appointmentId AND reserved_by_patient_id = :patientId " +
+                   "AND reservation_expires_at <= :now",
+           nativeQuery = true)
+    int releaseReservationIfExpired(@Param("appointmentId") int appointmentId,
+                                    @Param("patientId") int patientId,
+                                    @Param("now") LocalDateTime now);
+
+    // Live and lapsed holds: [appointmentId, reservedByPatientId, reservationExpiresAt]
+    @Query("SELECT a.id, a.reservedByPatientId, a.reservationExpiresAt FROM Appointment a " +
+           "WHERE a.reservationExpiresAt IS NOT NULL AND a.reservedByPatientId IS NOT NULL")
+    List<Object[]> findActiveReservations();
+
+    // Doctor owning a slot, or null if the slot does not exist
+    @Query("SELECT a.doctor.id FROM Appointment a WHERE a.id = :appointmentId")
+    Integer findDoctorIdById(@Param("appointmentId") int appointmentId);
+
+    // Keyset pages in (appointmentTime, id) order: rows strictly after (afterTime, afterId) within [from, to).
+    // The caller passes every status when not filtering and a page of limit + 1 to detect a following page.
+    @Query(APPOINTMENT_DTO_SELECT +
+           "WHERE a.status IN :statuses AND a.appointmentTime >= :from AND a.appointmentTime < :to " +
+           "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+           "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findPage(@Param("statuses") Collection<AppointmentStatus> statuses,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to,
+                               @Param("afterTime") LocalDateTime afterTime,
+                               @Param("afterId") int afterId,
+                               Pageable page);
+
+    @Query(APPOINTMENT_DTO_SELECT +
+           "WHERE d.id = :doctorId " +
+           "AND a.status IN :statuses AND a.appointmentTime >= :from AND a.appointmentTime < :to " +
+           "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+           "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findPageByDoctorId(@Param("doctorId") int doctorId,
+                                         @Param("statuses") Collection<AppointmentStatus> statuses,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         @Param("afterTime") LocalDateTime afterTime,
+                                         @Param("afterId") int afterId,
+                                         Pageable page);
+
+    @Query(APPOINTMENT_DTO_SELECT +
+           "WHERE p.id = :patientId " +
+           "AND a.status IN :statuses AND a.appointmentTime >= :from AND a.appointmentTime < :to " +
+           "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+           "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findPageByPatientId(@Param("patientId") int patientId,
+                                          @Param("statuses") Collection<AppointmentStatus> statuses,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("afterTime") LocalDateTime afterTime,
+                                          @Param("afterId") int afterId,
+                                          Pageable page);
 }
@@ -0,0 +1,97 @@
+package com.doctor.appointment.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set-based writes of AVAILABLE appointment slots.
+ *
+ * Appointment ids use IDENTITY generation, so Hibernate cannot batch inserts; this
+ * repository inserts a whole chunk of slot times with one statement via unnest().
+ */
+@Repository
+public class AppointmentSlotJdbcRepository {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // Skips times that already have a live (not cancelled) row for the doctor, so re-running a range is idempotent.
+    // Relies on the partial unique index uk_appointments_live_doctor_time, which also holds for concurrent runs.
+    private static final String INSERT_AVAILABLE_SLOTS =
+            "INSERT INTO appointments (doctor_id, appointment_time, status, reason, appointment_fee, version) " +
+            "SELECT ?, t.slot_time, 'AVAILABLE', 'Available Appointment Slot', ?, 0 " +
+            "FROM unnest(?) AS t(slot_time) " +
+            "ON CONFLICT (doctor_id, appointment_time) WHERE status <> 'CANCELLED' DO NOTHING";
+
+    private static final String INSERT_AVAILABLE_SLOTS_RETURNING_IDS = INSERT_AVAILABLE_SLOTS + " RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentSlotJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert AVAILABLE slots for a doctor at the given start times
+     *
+     * @return number of rows actually inserted
+     */
+    public int insertAvailableSlots(int doctorId, BigDecimal fee, List<LocalDateTime> slotTimes) {
+        int inserted = 0;
+        for (int from = 0; from < slotTimes.size(); from += CHUNK_SIZE) {
+            List<LocalDateTime> chunk = slotTimes.subList(from, Math.min(from + CHUNK_SIZE, slotTimes.size()));
+            Timestamp[] timestamps = chunk.stream().map(Timestamp::valueOf).toArray(Timestamp[]::new);
+            Integer rows = jdbcTemplate.execute(INSERT_AVAILABLE_SLOTS, (PreparedStatement ps) -> {
+                Array array = ps.getConnection().createArrayOf("timestamp", timestamps);
+                try {
+                    ps.setInt(1, doctorId);
+                    ps.setBigDecimal(2, fee);
+                    ps.setArray(3, array);
+                    return ps.executeUpdate();
+                } finally {
+                    array.free();
+                }
+            });
+            inserted += rows != null ? rows : 0;
+        }
+        return inserted;
+    }
+
+    /**
+     * Insert AVAILABLE slots for a doctor at the given start times, skipping times that already have a live row
+     *
+     * @return ids of the rows actually inserted
+     */
+    public List<Integer> insertAvailableSlotsReturningIds(int doctorId, BigDecimal fee, List<LocalDateTime> slotTimes) {
+        List<Integer> ids = new ArrayList<>();
+        for (int from = 0; from < slotTimes.size(); from += CHUNK_SIZE) {
+            List<LocalDateTime> chunk = slotTimes.subList(from, Math.min(from + CHUNK_SIZE, slotTimes.size()));
+            Timestamp[] timestamps = chunk.stream().map(Timestamp::valueOf).toArray(Timestamp[]::new);
+            jdbcTemplate.execute(INSERT_AVAILABLE_SLOTS_RETURNING_IDS, (PreparedStatement ps) -> {
+                Array array = ps.getConnection().createArrayOf("timestamp", timestamps);
+                try {
+                    ps.setInt(1, doctorId);
+                    ps.setBigDecimal(2, fee);
+                    ps.setArray(3, array);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getInt(1));
+                        }
+                    }
+                    return null;
+                } finally {
+                    array.free();
+                }
+            });
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,80 @@
+package com.doctor.appointment.repository;
+
+import com.doctor.appointment.model.AppointmentStatusHistory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Batched inserts of appointment status history.
+ *
+ * History ids use IDENTITY generation, so Hibernate inserts rows one statement at a time;
+ * this repository sends a whole list as one JDBC batch. It also maintains the per-appointment
+ * pending_history outbox used by StatusHistoryRecorder.
+ */
+@Repository
+public class AppointmentStatusHistoryJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_HISTORY =
+            "INSERT INTO appointment_status_history (appointment_id, from_status, to_status, changed_at, changed_by, note) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String REMOVE_FROM_OUTBOX =
+            "UPDATE appointments SET pending_history = NULLIF(REPLACE(pending_history, ?, ''), '') " +
+            "WHERE id = ? AND STRPOS(pending_history, ?) > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentStatusHistoryJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert history rows in JDBC batches; the rows' ids are not populated
+     */
+    public void insertAll(List<AppointmentStatusHistory> entries) {
+        jdbcTemplate.batchUpdate(INSERT_HISTORY, entries, BATCH_SIZE, (ps, entry) -> {
+            ps.setInt(1, entry.getAppointment().getId());
+            ps.setString(2, entry.getFromStatus().name());
+            ps.setString(3, entry.getToStatus().name());
+            ps.setTimestamp(4, Timestamp.valueOf(entry.getChangedAt()));
+            ps.setString(5, entry.getChangedBy());
+            ps.setString(6, entry.getNote());
+        });
+    }
+
+    /**
+     * Remove outbox lines from their appointments in one JDBC batch. The removals lock the rows, so
+     * a line can be removed by one transaction only.
+     *
+     * @return For each line, whether it was still in the outbox and this call removed it
+     */
+    public boolean[] removeFromOutbox(List<Integer> appointmentIds, List<String> lines) {
+        int[] counts = jdbcTemplate.batchUpdate(REMOVE_FROM_OUTBOX, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setString(1, lines.get(i));
+                ps.setInt(2, appointmentIds.get(i));
+                ps.setString(3, lines.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+        boolean[] removed = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            removed[i] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+        }
+        return removed;
+    }
+}
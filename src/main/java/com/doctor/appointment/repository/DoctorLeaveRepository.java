@@ -1,5 +1,6 @@
 package com.doctor.appointment.repository;
 
+import com.doctor.appointment.model.DTO.DoctorLeaveDTO;
 import com.doctor.appointment.model.DoctorLeave;
 import com.doctor.appointment.model.LeaveStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,41 +14,42 @@ import java.util.List;
 @Repository
 public interface DoctorLeaveRepository extends JpaRepository<DoctorLeave, Long> {
 
+    // Flat DoctorLeaveDTO rows with the doctor's name joined in, so list endpoints run one query
+    String LEAVE_DTO_SELECT = "SELECT new com.doctor.appointment.model.DTO.DoctorLeaveDTO(" +
+            "dl.id, d.id, COALESCE(u.name, 'Unknown'), dl.leaveType, dl.startDate, dl.endDate, dl.reason, " +
+            "dl.status, dl.requestedAt, dl.approvedBy, dl.approvedAt, dl.adminNotes, dl.isHalfDay) " +
+            "FROM DoctorLeave dl JOIN dl.doctor d LEFT JOIN d.user u ";
+
     // Find all leaves for a specific doctor
-    List<DoctorLeave> findByDoctorIdOrderByStartDateDesc(int doctorId);
+    @Query(LEAVE_DTO_SELECT + "WHERE d.id = :doctorId ORDER BY dl.startDate DESC")
+    List<DoctorLeaveDTO> findDTOsByDoctorId(@Param("doctorId") int doctorId);
 
     // Find leaves by status
-    List<DoctorLeave> findByStatusOrderByRequestedAtDesc(LeaveStatus status);
+    @Query(LEAVE_DTO_SELECT + "WHERE dl.status = :status ORDER BY dl.requestedAt DESC")
+    List<DoctorLeaveDTO> findDTOsByStatus(@Param("status") LeaveStatus status);
 
     // Find leaves for a doctor with a specific status
     List<DoctorLeave> findByDoctorIdAndStatusOrderByStartDateDesc(int doctorId, LeaveStatus status);
 
-    // Check if doctor is on leave for a specific date
-    @Query("SELECT CASE WHEN COUNT(dl) > 0 THEN true ELSE false END FROM DoctorLeave dl " +
-           "WHERE dl.doctor.id = :doctorId " +
-           "AND dl.status = 'APPROVED' " +
-           "AND :date BETWEEN dl.startDate AND dl.endDate")
-    boolean isDoctorOnLeave(@Param("doctorId") int doctorId, @Param("date") LocalDate date);
-
     // Find all approved leaves for a doctor within a date range
-    @Query("SELECT dl FROM DoctorLeave dl " +
-           "WHERE dl.doctor.id = :doctorId " +
+    @Query(LEAVE_DTO_SELECT +
+           "WHERE d.id = :doctorId " +
            "AND dl.status = 'APPROVED' " +
            "AND ((dl.startDate BETWEEN :startDate AND :endDate) " +
            "OR (dl.endDate BETWEEN :startDate AND :endDate) " +
            "OR (dl.startDate <= :startDate AND dl.endDate >= :endDate))")
-    List<DoctorLeave> findApprovedLeavesByDoctorAndDateRange(
+    List<DoctorLeaveDTO> findApprovedLeavesByDoctorAndDateRange(
             @Param("doctorId") int doctorId,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
     // Find all leaves within a date range (for admin dashboard)
-    @Query("SELECT dl FROM DoctorLeave dl " +
+    @Query(LEAVE_DTO_SELECT +
            "WHERE ((dl.startDate BETWEEN :startDate AND :endDate) " +
            "OR (dl.endDate BETWEEN :startDate AND :endDate) " +
            "OR (dl.startDate <= :startDate AND dl.endDate >= :endDate)) " +
            "ORDER BY dl.startDate ASC")
-    List<DoctorLeave> findLeavesByDateRange(
+    List<DoctorLeaveDTO> findLeavesByDateRange(
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 }
@@ -2,13 +2,33 @@ package com.doctor.appointment.repository;
 
 import com.doctor.appointment.model.Doctor;
 import com.doctor.appointment.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Integer> {
+    // Used at login and on doctor self-service requests
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Doctor> findByUser(User user);
     Optional<Doctor> findByUserEmail(String email); // Changed: email is now in User entity
+
+    // Doctors having the specialization, either through doctor_specializations or the legacy column
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN d.specializations s " +
+           "WHERE LOWER(s.name) = LOWER(:name) OR LOWER(d.specialization) = LOWER(:name)")
+    List<Doctor> findBySpecializationName(@Param("name") String name);
+
+    // Doctors with their user and specializations in one query, for the doctor directory
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN FETCH d.user LEFT JOIN FETCH d.specializations")
+    List<Doctor> findAllForDirectory();
+
+    @Query("SELECT d FROM Doctor d LEFT JOIN FETCH d.user LEFT JOIN FETCH d.specializations WHERE d.id = :id")
+    Optional<Doctor> findForDirectory(@Param("id") int id);
 }
@@ -0,0 +1,41 @@
+package com.doctor.appointment.repository;
+
+import com.doctor.appointment.model.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Store a response unless another request stored one for the same key first
+     *
+     * @return 1 if stored, 0 if the key already existed
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "INSERT INTO idempotency_keys (scoped_key, request_hash, status_code, response_body, created_at, expires_at) " +
+            "VALUES (:scopedKey, :requestHash, :statusCode, :responseBody, :createdAt, :expiresAt) " +
+            "ON CONFLICT (scoped_key) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("scopedKey") String scopedKey,
+                       @Param("requestHash") String requestHash,
+                       @Param("statusCode") int statusCode,
+                       @Param("responseBody") String responseBody,
+                       @Param("createdAt") LocalDateTime createdAt,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,5 +1,6 @@
 package com.doctor.appointment.repository;
 
+import com.doctor.appointment.model.DTO.PaymentDTO;
 import com.doctor.appointment.model.Payment;
 import com.doctor.appointment.model.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -17,11 +18,17 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     
     List<Payment> findByPaymentStatus(PaymentStatus paymentStatus);
     
-    @Query("SELECT p FROM Payment p WHERE p.appointment.patient.id = :patientId")
-    List<Payment> findByPatientId(@Param("patientId") int patientId);
+    // Flat PaymentDTO rows, so list endpoints do not load each payment's appointment, doctor and patient
+    String PAYMENT_DTO_SELECT = "SELECT new com.doctor.appointment.model.DTO.PaymentDTO(" +
+            "p.id, a.id, p.paymentMethod, p.paymentStatus, p.amount, p.transactionId, p.cardDetails, " +
+            "p.createdAt, p.paidAt, p.notes) " +
+            "FROM Payment p JOIN p.appointment a ";
     
-    @Query("SELECT p FROM Payment p WHERE p.appointment.doctor.id = :doctorId")
-    List<Payment> findByDoctorId(@Param("doctorId") int doctorId);
+    @Query(PAYMENT_DTO_SELECT + "WHERE a.patient.id = :patientId ORDER BY p.id")
+    List<PaymentDTO> findDTOsByPatientId(@Param("patientId") int patientId);
+    
+    @Query(PAYMENT_DTO_SELECT + "WHERE a.doctor.id = :doctorId ORDER BY p.id")
+    List<PaymentDTO> findDTOsByDoctorId(@Param("doctorId") int doctorId);
     
     Optional<Payment> findByTransactionId(String transactionId);
 }
@@ -1,11 +1,15 @@
 package com.doctor.appointment.repository;
 
 import com.doctor.appointment.model.Specialization;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface SpecializationRepository extends JpaRepository<Specialization, Integer> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Specialization> findByNameIgnoreCase(String name);
     boolean existsByNameIgnoreCase(String name);
 }
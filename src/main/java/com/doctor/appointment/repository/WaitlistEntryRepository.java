@@ -0,0 +1,49 @@
+package com.doctor.appointment.repository;
+
+import com.doctor.appointment.model.WaitlistEntry;
+import com.doctor.appointment.model.WaitlistStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    List<WaitlistEntry> findByPatientIdOrderByCreatedAtDesc(int patientId);
+
+    // Entries that still wait for a slot, to rebuild the in-memory queues: [id, doctorId, patientId, fromDate, toDate, earliestTime, latestTime]
+    @Query("SELECT w.id, w.doctor.id, w.patient.id, w.fromDate, w.toDate, w.earliestTime, w.latestTime " +
+           "FROM WaitlistEntry w WHERE w.status = com.doctor.appointment.model.WaitlistStatus.WAITING " +
+           "AND w.toDate >= :today ORDER BY w.createdAt, w.id")
+    List<Object[]> findWaiting(@Param("today") LocalDate today);
+
+    // Offers whose hold has lapsed: [id, doctorId, patientId, offeredAppointmentId, offerExpiresAt]
+    @Query("SELECT w.id, w.doctor.id, w.patient.id, w.offeredAppointmentId, w.offerExpiresAt FROM WaitlistEntry w " +
+           "WHERE w.status = com.doctor.appointment.model.WaitlistStatus.OFFERED AND w.offerExpiresAt < :now")
+    List<Object[]> findLapsedOffers(@Param("now") LocalDateTime now);
+
+    // Move an entry between states only if it is still in the expected one; returns 1 on success
+    @Modifying
+    @Transactional
+    @Query("UPDATE WaitlistEntry w SET w.status = :to, w.offeredAppointmentId = :appointmentId, " +
+           "w.offerExpiresAt = :offerExpiresAt WHERE w.id = :id AND w.status = :from")
+    int transition(@Param("id") long id,
+                   @Param("from") WaitlistStatus from,
+                   @Param("to") WaitlistStatus to,
+                   @Param("appointmentId") Integer appointmentId,
+                   @Param("offerExpiresAt") LocalDateTime offerExpiresAt);
+
+    // Entries whose date range has passed
+    @Modifying
+    @Transactional
+    @Query("UPDATE WaitlistEntry w SET w.status = com.doctor.appointment.model.WaitlistStatus.EXPIRED " +
+           "WHERE w.status = com.doctor.appointment.model.WaitlistStatus.WAITING AND w.toDate < :today")
+    int expirePast(@Param("today") LocalDate today);
+}
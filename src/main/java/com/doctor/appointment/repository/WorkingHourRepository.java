@@ -1,13 +1,17 @@
 package com.doctor.appointment.repository;
 
 import com.doctor.appointment.model.WorkingHour;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.DayOfWeek;
 import java.util.List;
 import java.util.Optional;
 
 public interface WorkingHourRepository extends JpaRepository<WorkingHour, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<WorkingHour> findByDoctorIdOrderByDayOfWeekAscSequenceAsc(int doctorId);
     List<WorkingHour> findByDoctorIdAndDayOfWeekOrderByStartTimeAsc(int doctorId, DayOfWeek dayOfWeek);
     Optional<WorkingHour> findByIdAndDoctorId(Long id, int doctorId);
@@ -1,13 +1,14 @@
 package com.doctor.appointment.service;
 
-import com.doctor.appointment.model.Appointment;
+import com.doctor.appointment.model.ReservationOutcome;
 import com.doctor.appointment.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 /**
  * Service to handle temporary slot reservations during payment process
@@ -16,148 +17,106 @@ import java.util.Optional;
 @Service
 public class AppointmentReservationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentReservationService.class);
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
+    @Autowired
+    private ReservationExpiryWheel expiryWheel;
+
     private static final int RESERVATION_DURATION_MINUTES = 5; // Slot reserved for 5 minutes
 
+    private static final int CLEANUP_BATCH_SIZE = 500; // Rows released per sweep statement
+
     /**
      * Reserve a slot temporarily for a patient during payment process
+     * Done in one conditional statement, so racing patients never hit version conflicts
      * @param appointmentId The appointment slot to reserve
      * @param patientId The patient reserving the slot
-     * @return true if reservation successful, false if already reserved by someone else
+     * @return RESERVED on success, otherwise why the slot could not be reserved
      */
     @Transactional
-    public boolean reserveSlot(int appointmentId, int patientId) {
-        Optional<Appointment> optionalAppointment = appointmentRepository.findById(appointmentId);
-        
-        if (optionalAppointment.isEmpty()) {
-            return false;
-        }
+    public ReservationOutcome reserveSlot(int appointmentId, int patientId) {
+        return reserveSlot(appointmentId, patientId, RESERVATION_DURATION_MINUTES);
+    }
 
-        Appointment appointment = optionalAppointment.get();
+    /**
+     * Reserve a slot for a patient for a custom duration (e.g. a waitlist offer)
+     * @param appointmentId The appointment slot to reserve
+     * @param patientId The patient reserving the slot
+     * @param holdMinutes How long the hold lasts
+     * @return RESERVED on success, otherwise why the slot could not be reserved
+     */
+    @Transactional
+    public ReservationOutcome reserveSlot(int appointmentId, int patientId, int holdMinutes) {
         LocalDateTime now = LocalDateTime.now();
-
-        // Check if slot is already booked
-        if (appointment.getPatient() != null) {
-            return false;
-        }
-
-        // Check if slot is reserved by another patient
-        if (appointment.getReservedByPatientId() != null) {
-            // Check if reservation has expired
-            if (appointment.getReservationExpiresAt() != null && 
-                appointment.getReservationExpiresAt().isAfter(now)) {
-                // Still reserved by someone else
-                if (!appointment.getReservedByPatientId().equals(patientId)) {
-                    return false;
-                }
-            }
+        LocalDateTime expiresAt = now.plusMinutes(holdMinutes);
+        ReservationOutcome outcome = ReservationOutcome.valueOf(
+                appointmentRepository.reserveSlot(appointmentId, patientId, now, expiresAt));
+        if (outcome == ReservationOutcome.RESERVED) {
+            // Release the hold the moment it lapses instead of waiting for the next sweep
+            expiryWheel.schedule(appointmentId, patientId, expiresAt);
         }
-
-        // Reserve the slot
-        appointment.setReservedByPatientId(patientId);
-        appointment.setReservationExpiresAt(now.plusMinutes(RESERVATION_DURATION_MINUTES));
-        appointmentRepository.save(appointment);
-
-        return true;
+        return outcome;
     }
 
     /**
      * Release a reservation (called when payment is cancelled or completed)
      * @param appointmentId The appointment to release
      * @param patientId The patient who reserved it
+     * @return RELEASED if this patient's hold was dropped, otherwise the slot's current state
      */
     @Transactional
-    public void releaseReservation(int appointmentId, int patientId) {
-        try {
-            Optional<Appointment> optionalAppointment = appointmentRepository.findById(appointmentId);
-            
-            if (optionalAppointment.isEmpty()) {
-                // Appointment doesn't exist (deleted or never existed)
-                return;
-            }
-
-            Appointment appointment = optionalAppointment.get();
-
-            // If appointment is already booked, no need to release reservation
-            if (appointment.getPatient() != null) {
-                return;
-            }
-
-            // Only release if this patient made the reservation
-            if (appointment.getReservedByPatientId() != null && 
-                appointment.getReservedByPatientId().equals(patientId)) {
-                appointment.setReservedByPatientId(null);
-                appointment.setReservationExpiresAt(null);
-                appointmentRepository.save(appointment);
-            }
-        } catch (Exception e) {
-            // Silently handle optimistic locking failures or other exceptions
-            // If we can't release, it's likely already booked or deleted
-            // which achieves the same goal
+    public ReservationOutcome releaseReservation(int appointmentId, int patientId) {
+        ReservationOutcome outcome = ReservationOutcome.valueOf(
+                appointmentRepository.releaseReservation(appointmentId, patientId));
+        if (outcome == ReservationOutcome.RELEASED) {
+            expiryWheel.cancel(appointmentId);
         }
+        return outcome;
+    }
+
+    /**
+     * Check a slot's reservation state for a patient (not booked and not reserved by someone else)
+     * @param appointmentId The appointment to check
+     * @param patientId The patient checking (can access their own reservations)
+     * @return AVAILABLE, RESERVED (by this patient), HELD_BY_OTHER, ALREADY_BOOKED or NOT_FOUND
+     */
+    public ReservationOutcome checkSlot(int appointmentId, int patientId) {
+        String state = appointmentRepository.findReservationState(appointmentId, patientId, LocalDateTime.now());
+        return state != null ? ReservationOutcome.valueOf(state) : ReservationOutcome.NOT_FOUND;
     }
 
     /**
-     * Check if a slot is available (not booked and not reserved)
+     * Check if a slot is available (not booked and not reserved by another patient)
      * @param appointmentId The appointment to check
      * @param patientId The patient checking (can access their own reservations)
      * @return true if available or reserved by this patient
      */
     public boolean isSlotAvailable(int appointmentId, int patientId) {
-        Optional<Appointment> optionalAppointment = appointmentRepository.findById(appointmentId);
-        
-        if (optionalAppointment.isEmpty()) {
-            return false;
-        }
-
-        Appointment appointment = optionalAppointment.get();
-        LocalDateTime now = LocalDateTime.now();
-
-        // Check if already booked
-        if (appointment.getPatient() != null) {
-            return false;
-        }
-
-        // Check if reserved by another patient
-        if (appointment.getReservedByPatientId() != null) {
-            // Check if reservation expired
-            if (appointment.getReservationExpiresAt() != null && 
-                appointment.getReservationExpiresAt().isBefore(now)) {
-                // Reservation expired, slot is available
-                return true;
-            }
-            // Reserved by this patient
-            if (appointment.getReservedByPatientId().equals(patientId)) {
-                return true;
-            }
-            // Reserved by someone else
-            return false;
-        }
-
-        return true;
+        ReservationOutcome state = checkSlot(appointmentId, patientId);
+        return state == ReservationOutcome.AVAILABLE || state == ReservationOutcome.RESERVED;
     }
 
     /**
      * Clean up expired reservations (can be called periodically)
+     * Safety net behind ReservationExpiryWheel, e.g. for holds made by another instance
+     * Set-based sweep in bounded chunks; each chunk commits on its own so locks stay short
+     * @return Number of reservations released
      */
-    @Transactional
-    public void cleanupExpiredReservations() {
+    public int cleanupExpiredReservations() {
         LocalDateTime now = LocalDateTime.now();
-        appointmentRepository.findAll().forEach(appointment -> {
-            try {
-                if (appointment.getReservationExpiresAt() != null && 
-                    appointment.getReservationExpiresAt().isBefore(now) &&
-                    appointment.getPatient() == null) {
-                    appointment.setReservedByPatientId(null);
-                    appointment.setReservationExpiresAt(null);
-                    appointmentRepository.save(appointment);
-                }
-            } catch (Exception e) {
-                // Silently ignore optimistic locking failures
-                // Appointment may have been deleted or updated by another transaction
-            }
-        });
+        int total = 0;
+        int released;
+        do {
+            released = appointmentRepository.releaseExpiredReservations(now, CLEANUP_BATCH_SIZE);
+            total += released;
+        } while (released == CLEANUP_BATCH_SIZE);
+        
+        if (total > 0) {
+            logger.info("Released {} expired slot reservations", total);
+        }
+        return total;
     }
 }
@@ -1,10 +1,14 @@
 package com.doctor.appointment.service;
 
 import com.doctor.appointment.model.DTO.AppointmentCreateDTO;
+import com.doctor.appointment.model.AppointmentStatus;
 import com.doctor.appointment.model.DTO.AppointmentDTO;
+import com.doctor.appointment.model.DTO.AppointmentPageDTO;
 import com.doctor.appointment.model.DTO.AppointmentSlotCreateDTO;
 import com.doctor.appointment.model.DTO.AppointmentStatusHistoryDTO;
 import com.doctor.appointment.model.DTO.AppointmentStatusUpdateDTO;
+import com.doctor.appointment.model.DTO.BulkStatusUpdateDTO;
+import com.doctor.appointment.model.DTO.BulkStatusUpdateResultDTO;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -12,6 +16,15 @@ import java.util.List;
 public interface AppointmentService {
     List<AppointmentDTO> findAll();
 
+    /**
+     * Page through appointments in (appointmentTime, id) order, optionally for one doctor or patient.
+     * Statuses and the date range are optional filters; cursor is the previous page's nextCursor.
+     *
+     * @throws IllegalArgumentException for an invalid limit, date range or cursor
+     */
+    AppointmentPageDTO findPage(Integer doctorId, Integer patientId, List<AppointmentStatus> statuses,
+                                LocalDate from, LocalDate to, String cursor, int limit);
+
     AppointmentDTO findById(int theId);
 
     AppointmentDTO save(AppointmentCreateDTO appointmentCreateDTO);
@@ -25,6 +38,11 @@ public interface AppointmentService {
     List<AppointmentDTO> findByDoctorIdAndDate(int doctorId, String date);
     
     AppointmentDTO updateStatus(int appointmentId, AppointmentStatusUpdateDTO statusUpdateDTO);
+
+    /**
+     * Move many appointments to one status with set-based updates, reporting the outcome per appointment
+     */
+    BulkStatusUpdateResultDTO updateStatuses(BulkStatusUpdateDTO bulkStatusUpdateDTO);
     
     List<AppointmentDTO> createAppointmentSlots(AppointmentSlotCreateDTO slotCreateDTO);
     
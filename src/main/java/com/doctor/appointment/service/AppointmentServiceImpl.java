@@ -2,22 +2,36 @@ package com.doctor.appointment.service;
 
 import com.doctor.appointment.model.DTO.AppointmentCreateDTO;
 import com.doctor.appointment.model.DTO.AppointmentDTO;
+import com.doctor.appointment.model.DTO.AppointmentPageDTO;
 import com.doctor.appointment.model.DTO.AppointmentSlotCreateDTO;
 import com.doctor.appointment.model.DTO.AppointmentStatusHistoryDTO;
 import com.doctor.appointment.model.DTO.AppointmentStatusUpdateDTO;
+import com.doctor.appointment.model.DTO.BulkStatusUpdateDTO;
+import com.doctor.appointment.model.DTO.BulkStatusUpdateResultDTO;
 import com.doctor.appointment.model.Appointment;
 import com.doctor.appointment.model.AppointmentStatus;
 import com.doctor.appointment.model.AppointmentStatusHistory;
 import com.doctor.appointment.model.Doctor;
 import com.doctor.appointment.model.Patient;
+import com.doctor.appointment.event.AppointmentSlotFreedEvent;
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import com.doctor.appointment.exception.SlotConflictException;
 import com.doctor.appointment.repository.AppointmentRepository;
+import com.doctor.appointment.repository.AppointmentSlotJdbcRepository;
+import com.doctor.appointment.repository.AppointmentStatusHistoryJdbcRepository;
 import com.doctor.appointment.repository.AppointmentStatusHistoryRepository;
 import com.doctor.appointment.repository.DoctorRepository;
 import com.doctor.appointment.repository.PatientRepository;
 // ModelMapper not needed anymore as we use custom mapping
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -25,10 +39,17 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -49,23 +70,112 @@ public class AppointmentServiceImpl implements AppointmentService {
     
     @Autowired
     private DoctorLeaveService doctorLeaveService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private AppointmentSlotBooker appointmentSlotBooker;
+
+    @Autowired
+    private StatusHistoryRecorder statusHistoryRecorder;
+
+    @Autowired
+    private AppointmentStatusHistoryJdbcRepository appointmentStatusHistoryJdbcRepository;
+
+    @Autowired
+    private AppointmentSlotJdbcRepository appointmentSlotJdbcRepository;
+
+    // Upper bound on appointments moved by one bulk status request
+    private static final int MAX_BULK_STATUS_UPDATE = 2000;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Open ends of the paging filters, so the keyset queries need no null handling
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 1, 1, 0, 0);
 
     // ModelMapper removed as we use custom mapping
 
     @Override
     public List<AppointmentDTO> findAll() {
         // Use entity graph to eagerly fetch patient and doctor to avoid lazy-loading issues
-        return appointmentRepository.findAllWithPatientAndDoctor().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findAllDTOs();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public AppointmentPageDTO findPage(Integer doctorId, Integer patientId, List<AppointmentStatus> statuses,
+                                       LocalDate from, LocalDate to, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        Collection<AppointmentStatus> statusFilter = statuses == null || statuses.isEmpty()
+                ? EnumSet.allOf(AppointmentStatus.class) : statuses;
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : EARLIEST;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : LATEST;
+
+        // Before the first page the key is below every row
+        LocalDateTime afterTime = EARLIEST.minusDays(1);
+        int afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = decodeCursor(cursor);
+            afterTime = LocalDateTime.parse(key[0]);
+            afterId = Integer.parseInt(key[1]);
+        }
+
+        // One extra row tells whether another page follows, without a count query
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<AppointmentDTO> rows;
+        if (doctorId != null) {
+            rows = appointmentRepository.findPageByDoctorId(doctorId, statusFilter, fromTime, toTime, afterTime, afterId, page);
+        } else if (patientId != null) {
+            rows = appointmentRepository.findPageByPatientId(patientId, statusFilter, fromTime, toTime, afterTime, afterId, page);
+        } else {
+            rows = appointmentRepository.findPage(statusFilter, fromTime, toTime, afterTime, afterId, page);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<AppointmentDTO> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            AppointmentDTO last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(last.getAppointmentTime(), last.getId());
+        }
+        return new AppointmentPageDTO(items, nextCursor, hasMore);
+    }
+
+    // The cursor is the (appointmentTime, id) key of the last returned row, opaque to clients
+    private static String encodeCursor(LocalDateTime appointmentTime, int id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((appointmentTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(key[0]);
+            Integer.parseInt(key[1]);
+            return key;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    @Override
+    // One snapshot for both reads, so an entry flushed in between is seen exactly once
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public List<AppointmentStatusHistoryDTO> getStatusHistory(int appointmentId) {
         // Ensure appointment exists
-        appointmentRepository.findById(appointmentId)
+        Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found: " + appointmentId));
-        return appointmentStatusHistoryRepository
+        List<AppointmentStatusHistoryDTO> history = appointmentStatusHistoryRepository
                 .findByAppointmentIdOrderByChangedAtAsc(appointmentId)
                 .stream()
                 .map(h -> new AppointmentStatusHistoryDTO(
@@ -76,6 +186,16 @@ public class AppointmentServiceImpl implements AppointmentService {
                         h.getNote()
                 ))
                 .collect(Collectors.toList());
+
+        // Merge entries still waiting in the outbox
+        List<StatusHistoryRecorder.PendingHistory> pending =
+                statusHistoryRecorder.pendingEntries(appointment.getPendingHistory());
+        if (!pending.isEmpty()) {
+            pending.forEach(p -> history.add(new AppointmentStatusHistoryDTO(
+                    p.fromStatus(), p.toStatus(), p.changedAt(), p.changedBy(), p.note())));
+            history.sort(Comparator.comparing(AppointmentStatusHistoryDTO::getChangedAt));
+        }
+        return history;
     }
 
     @Override
@@ -106,12 +226,21 @@ public class AppointmentServiceImpl implements AppointmentService {
         // Set reason if provided
         appointment.setReason(appointmentCreateDTO.getReason());
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        Appointment savedAppointment;
+        try {
+            savedAppointment = appointmentRepository.save(appointment);
+        } catch (DataIntegrityViolationException e) {
+            // uk_appointments_live_doctor_time: the doctor already has a live appointment at this time
+            throw new SlotConflictException("Doctor already has an appointment at " + appointment.getAppointmentTime());
+        }
+        publishScheduleChange(savedAppointment);
         return convertToDTO(savedAppointment);
     }
 
     @Override
+    @Transactional
     public void deleteById(int theId) {
+        appointmentRepository.findById(theId).ifPresent(this::publishScheduleChange);
         appointmentRepository.deleteById(theId);
     }
     
@@ -129,6 +258,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         dto.setReason(appointment.getReason());
         dto.setStatus(appointment.getStatus());
         dto.setAppointmentFee(appointment.getAppointmentFee());
+        dto.setSeriesId(appointment.getSeriesId());
         
         // Doctor information
         Doctor doctor = appointment.getDoctor();
@@ -148,10 +278,44 @@ public class AppointmentServiceImpl implements AppointmentService {
         return dto;
     }
 
+    /**
+     * Put a cancelled appointment's time back on offer as a new AVAILABLE slot.
+     * The cancelled row keeps its patient and history; the waitlist gets the new slot after commit.
+     */
+    private void reopenSlot(Appointment cancelled) {
+        if (cancelled.getDoctor() == null || !cancelled.getAppointmentTime().isAfter(LocalDateTime.now())) {
+            return;
+        }
+        Appointment slot = new Appointment();
+        slot.setDoctor(cancelled.getDoctor());
+        slot.setAppointmentTime(cancelled.getAppointmentTime());
+        slot.setAppointmentFee(cancelled.getAppointmentFee());
+        slot.setStatus(AppointmentStatus.AVAILABLE);
+        slot.setReason("Available Appointment Slot");
+        Appointment reopened = appointmentRepository.save(slot);
+        eventPublisher.publishEvent(new AppointmentSlotFreedEvent(cancelled.getDoctor().getId(),
+                reopened.getId(), reopened.getAppointmentTime()));
+    }
+
+    /**
+     * Let schedule-derived caches know that the appointment's doctor-day changed
+     */
+    private void publishScheduleChange(Appointment appointment) {
+        if (appointment.getDoctor() == null) {
+            return;
+        }
+        int doctorId = appointment.getDoctor().getId();
+        eventPublisher.publishEvent(appointment.getAppointmentTime() != null
+                ? DoctorScheduleChangedEvent.forDate(doctorId, DoctorScheduleChangedEvent.Kind.APPOINTMENTS,
+                        appointment.getAppointmentTime().toLocalDate())
+                : DoctorScheduleChangedEvent.allDates(doctorId, DoctorScheduleChangedEvent.Kind.APPOINTMENTS));
+    }
+
     @Override
     public AppointmentDTO update(int appointmentId, AppointmentCreateDTO appointmentCreateDTO) {
         Appointment existingAppointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found: " + appointmentId));
+        publishScheduleChange(existingAppointment);
 
         // Update doctor if changed
         if (existingAppointment.getDoctor().getId() != appointmentCreateDTO.getDoctorId()) {
@@ -172,6 +336,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         existingAppointment.setReason(appointmentCreateDTO.getReason());
 
         Appointment updatedAppointment = appointmentRepository.save(existingAppointment);
+        publishScheduleChange(updatedAppointment);
 
         return convertToDTO(updatedAppointment);
     }
@@ -189,9 +354,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         }
         
         // Find appointments for the doctor
-        return appointmentRepository.findByDoctorId(doctorId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findDTOsByDoctorId(doctorId);
     }
     
     @Override
@@ -214,12 +377,11 @@ public class AppointmentServiceImpl implements AppointmentService {
         LocalDateTime endOfDay = date.plusDays(1).atStartOfDay().minusSeconds(1);
         
         // Find appointments for the doctor on the specified date
-        return appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, startOfDay, endOfDay).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findDTOsByDoctorIdAndTimeBetween(doctorId, startOfDay, endOfDay);
     }
     
     @Override
+    @Transactional
     public AppointmentDTO updateStatus(int appointmentId, AppointmentStatusUpdateDTO statusUpdateDTO) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found: " + appointmentId));
@@ -227,41 +389,124 @@ public class AppointmentServiceImpl implements AppointmentService {
         AppointmentStatus fromStatus = appointment.getStatus();
         AppointmentStatus toStatus = statusUpdateDTO.getStatus();
 
-        // Define allowed transitions
-        Map<AppointmentStatus, List<AppointmentStatus>> allowed = new EnumMap<>(AppointmentStatus.class);
-        allowed.put(AppointmentStatus.AVAILABLE, Arrays.asList(AppointmentStatus.BOOKED));
-        allowed.put(AppointmentStatus.BOOKED, Arrays.asList(AppointmentStatus.CONFIRMED, AppointmentStatus.CANCELLED));
-        allowed.put(AppointmentStatus.CONFIRMED, Arrays.asList(AppointmentStatus.CANCELLED, AppointmentStatus.COMPLETED));
-        allowed.put(AppointmentStatus.CANCELLED, List.of());
-        allowed.put(AppointmentStatus.COMPLETED, List.of());
-
         // Validate transition (allow idempotent: from == to)
-        if (fromStatus != toStatus && (!allowed.containsKey(fromStatus) || !allowed.get(fromStatus).contains(toStatus))) {
+        if (fromStatus != toStatus && !fromStatus.canTransitionTo(toStatus)) {
             throw new RuntimeException("Invalid status transition from " + fromStatus + " to " + toStatus);
         }
 
-        // Update the status only if changed
+        // Update the status only if changed; the history entry is written by the same UPDATE
         if (fromStatus != toStatus) {
+            String historyLine = statusHistoryRecorder.record(appointmentId, fromStatus, toStatus,
+                    statusUpdateDTO.getChangedBy(), statusUpdateDTO.getNote());
+            if (appointmentRepository.transitionStatus(appointmentId, fromStatus, toStatus, historyLine) == 0) {
+                throw new RuntimeException("Appointment " + appointmentId + " was changed by someone else. Please retry.");
+            }
+            // Detached by the UPDATE; only the response needs the new status
             appointment.setStatus(toStatus);
-            Appointment saved = appointmentRepository.save(appointment);
-
-            // Write history record
-            AppointmentStatusHistory history = new AppointmentStatusHistory();
-            history.setAppointment(saved);
-            history.setFromStatus(fromStatus);
-            history.setToStatus(toStatus);
-            history.setChangedAt(java.time.LocalDateTime.now());
-            history.setChangedBy(statusUpdateDTO.getChangedBy());
-            history.setNote(statusUpdateDTO.getNote());
-            appointmentStatusHistoryRepository.save(history);
-
-            return convertToDTO(saved);
+            if (toStatus == AppointmentStatus.CANCELLED) {
+                reopenSlot(appointment);
+            }
+            publishScheduleChange(appointment);
+
+            return convertToDTO(appointment);
         }
 
         // No change, but still return DTO
         return convertToDTO(appointment);
     }
     
+    @Override
+    @Transactional
+    public BulkStatusUpdateResultDTO updateStatuses(BulkStatusUpdateDTO request) {
+        AppointmentStatus toStatus = request.getStatus();
+        List<Object[]> rows;
+        List<Integer> requestedIds;
+        if (request.getAppointmentIds() != null && !request.getAppointmentIds().isEmpty()) {
+            requestedIds = new ArrayList<>(new LinkedHashSet<>(request.getAppointmentIds()));
+            if (requestedIds.size() > MAX_BULK_STATUS_UPDATE) {
+                throw new RuntimeException("At most " + MAX_BULK_STATUS_UPDATE + " appointments can be updated at once");
+            }
+            rows = appointmentRepository.findStatusRows(requestedIds);
+        } else if (request.getDoctorId() != null && request.getDate() != null) {
+            rows = appointmentRepository.findStatusRowsByDoctorAndTimeRange(request.getDoctorId(),
+                    request.getDate().atStartOfDay(), request.getDate().plusDays(1).atStartOfDay());
+            if (request.getFromStatus() != null) {
+                rows = rows.stream().filter(row -> row[1] == request.getFromStatus()).toList();
+            }
+            if (rows.size() > MAX_BULK_STATUS_UPDATE) {
+                throw new RuntimeException("At most " + MAX_BULK_STATUS_UPDATE + " appointments can be updated at once");
+            }
+            requestedIds = rows.stream().map(row -> (Integer) row[0]).toList();
+        } else {
+            throw new RuntimeException("Either appointmentIds or doctorId and date are required");
+        }
+
+        Map<Integer, Object[]> current = new HashMap<>();
+        rows.forEach(row -> current.put((Integer) row[0], row));
+
+        // Classify against the transition table, grouping the movable ids by their current status
+        Map<Integer, BulkStatusUpdateResultDTO.Item> results = new LinkedHashMap<>();
+        Map<AppointmentStatus, List<Integer>> movable = new EnumMap<>(AppointmentStatus.class);
+        for (Integer id : requestedIds) {
+            Object[] row = current.get(id);
+            if (row == null) {
+                results.put(id, new BulkStatusUpdateResultDTO.Item(id, null, BulkStatusUpdateResultDTO.Outcome.NOT_FOUND));
+                continue;
+            }
+            AppointmentStatus fromStatus = (AppointmentStatus) row[1];
+            BulkStatusUpdateResultDTO.Outcome outcome;
+            if (fromStatus == toStatus) {
+                outcome = BulkStatusUpdateResultDTO.Outcome.UNCHANGED;
+            } else if (request.getFromStatus() != null && fromStatus != request.getFromStatus()) {
+                outcome = BulkStatusUpdateResultDTO.Outcome.CONFLICT;
+            } else if (!fromStatus.canTransitionTo(toStatus)) {
+                outcome = BulkStatusUpdateResultDTO.Outcome.INVALID_TRANSITION;
+            } else {
+                movable.computeIfAbsent(fromStatus, status -> new ArrayList<>()).add(id);
+                outcome = BulkStatusUpdateResultDTO.Outcome.CONFLICT; // Until the UPDATE confirms it
+            }
+            results.put(id, new BulkStatusUpdateResultDTO.Item(id, fromStatus, outcome));
+        }
+
+        // One conditional UPDATE per source status; rows that changed meanwhile are not returned
+        LocalDateTime now = LocalDateTime.now();
+        List<AppointmentStatusHistory> history = new ArrayList<>();
+        List<Integer> cancelled = new ArrayList<>();
+        Map<Integer, Set<LocalDate>> changedDays = new HashMap<>();
+        for (Map.Entry<AppointmentStatus, List<Integer>> group : movable.entrySet()) {
+            List<Integer> updatedIds = appointmentRepository.transitionStatuses(group.getValue(),
+                    group.getKey().name(), toStatus.name());
+            for (Integer id : updatedIds) {
+                results.get(id).setOutcome(BulkStatusUpdateResultDTO.Outcome.UPDATED);
+                Appointment ref = new Appointment();
+                ref.setId(id);
+                history.add(new AppointmentStatusHistory(null, ref, group.getKey(), toStatus, now,
+                        request.getChangedBy(), request.getNote()));
+                if (toStatus == AppointmentStatus.CANCELLED) {
+                    cancelled.add(id);
+                }
+                Object[] row = current.get(id);
+                if (row[2] != null && row[3] != null) {
+                    changedDays.computeIfAbsent((Integer) row[2], doctorId -> new LinkedHashSet<>())
+                            .add(((LocalDateTime) row[3]).toLocalDate());
+                }
+            }
+        }
+        // Unlike single transitions, which go through the pending_history outbox, a bulk change writes its
+        // history directly: one batched insert in the same transaction as the set-based UPDATE
+        if (!history.isEmpty()) {
+            appointmentStatusHistoryJdbcRepository.insertAll(history);
+        }
+        if (!cancelled.isEmpty()) {
+            appointmentRepository.findAllById(cancelled).forEach(this::reopenSlot);
+        }
+        changedDays.forEach((doctorId, dates) -> dates.forEach(date -> eventPublisher.publishEvent(
+                DoctorScheduleChangedEvent.forDate(doctorId, DoctorScheduleChangedEvent.Kind.APPOINTMENTS, date))));
+
+        return new BulkStatusUpdateResultDTO(toStatus, requestedIds.size(), history.size(),
+                new ArrayList<>(results.values()));
+    }
+
     @Override
     public List<AppointmentDTO> createAppointmentSlots(AppointmentSlotCreateDTO slotCreateDTO) {
         try {
@@ -315,30 +560,31 @@ public class AppointmentServiceImpl implements AppointmentService {
             // Calculate slot duration in minutes
             int durationMinutes = slotCreateDTO.getDurationMinutes();
             
-            // Create a list to hold all the appointments
-            List<Appointment> createdAppointments = new ArrayList<>();
-            
-            // Generate appointment slots
+            // Generate the start times of the appointment slots
+            List<LocalDateTime> slotTimes = new ArrayList<>();
             LocalTime currentSlotStart = startTime;
             while (currentSlotStart.plusMinutes(durationMinutes).compareTo(endTime) <= 0) {
-                LocalTime currentSlotEnd = currentSlotStart.plusMinutes(durationMinutes);
-                
-                // Create a new appointment slot
-                Appointment slot = new Appointment();
-                slot.setDoctor(doctor);
-                slot.setAppointmentTime(LocalDateTime.of(date, currentSlotStart));
-                slot.setStatus(AppointmentStatus.AVAILABLE); // Set as available by default
-                slot.setReason("Available Appointment Slot");
-                // Copy doctor's fee into slot
-                slot.setAppointmentFee(doctor.getFee());
-                
-                // Save the appointment slot
-                createdAppointments.add(appointmentRepository.save(slot));
+                slotTimes.add(LocalDateTime.of(date, currentSlotStart));
                 
                 // Move to the next slot
-                currentSlotStart = currentSlotEnd;
+                currentSlotStart = currentSlotStart.plusMinutes(durationMinutes);
             }
             
+            // AVAILABLE slots carrying the doctor's fee; times that already have a live row
+            // (e.g. materialized by the rolling horizon job) are skipped and left out of the result
+            List<Integer> createdIds = slotTimes.isEmpty() ? List.of()
+                    : appointmentSlotJdbcRepository.insertAvailableSlotsReturningIds(doctor.getId(), doctor.getFee(), slotTimes);
+            List<Appointment> createdAppointments = appointmentRepository.findAllById(createdIds).stream()
+                    .sorted(Comparator.comparing(Appointment::getAppointmentTime))
+                    .collect(Collectors.toList());
+            if (createdAppointments.size() < slotTimes.size()) {
+                System.out.println("Skipped " + (slotTimes.size() - createdAppointments.size()) + " of " + slotTimes.size()
+                        + " slots of doctor " + doctor.getId() + " on " + date + " that already exist");
+            }
+            
+            eventPublisher.publishEvent(DoctorScheduleChangedEvent.forDate(
+                    doctor.getId(), DoctorScheduleChangedEvent.Kind.APPOINTMENTS, date));
+            
             // Convert all created appointments to DTOs and return
             return createdAppointments.stream()
                     .map(this::convertToDTO)
@@ -376,6 +622,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         
         // Delete the appointment slot
         appointmentRepository.deleteById(appointmentId);
+        publishScheduleChange(appointment);
         return true;
     }
     
@@ -403,7 +650,7 @@ public class AppointmentServiceImpl implements AppointmentService {
             System.out.println("Searching for slots between: " + startOfDay + " and " + endOfDay);
             
             // Find available appointments for the doctor on the specified date
-            List<Appointment> appointments = appointmentRepository.findByDoctorIdAndStatusAndAppointmentTimeBetween(
+            List<AppointmentDTO> appointments = appointmentRepository.findDTOsByDoctorIdAndStatusAndTimeBetween(
                     doctorId, 
                     AppointmentStatus.AVAILABLE, 
                     startOfDay, 
@@ -411,9 +658,7 @@ public class AppointmentServiceImpl implements AppointmentService {
             
             System.out.println("Found " + appointments.size() + " available appointments");
             
-            return appointments.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+            return appointments;
         } catch (Exception e) {
             System.err.println("Error in getAvailableSlotsByDoctorAndDate: " + e.getMessage());
             e.printStackTrace();
@@ -428,108 +673,47 @@ public class AppointmentServiceImpl implements AppointmentService {
         patientRepository.findById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found with id: " + patientId));
         
-        // Find all appointments for this patient
-        List<Appointment> appointments = appointmentRepository.findByPatientId(patientId);
-        
-        // Convert all entities to DTOs
-        return appointments.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // Find all appointments for this patient as flat rows
+        return appointmentRepository.findDTOsByPatientId(patientId);
     }
     
     @Override
+    @Transactional
     public AppointmentDTO bookAppointment(int appointmentId, int patientId) {
-        // Find the appointment slot
-        Appointment appointment = appointmentRepository.findById(appointmentId)
-                .orElseThrow(() -> new RuntimeException("Appointment slot not found: " + appointmentId));
-        
-        // Check if the slot is available
-        if (appointment.getStatus() != AppointmentStatus.AVAILABLE) {
-            throw new RuntimeException("This appointment slot is not available for booking");
-        }
-        
-        // Check if doctor is on leave for the appointment date
-        LocalDate appointmentDate = appointment.getAppointmentTime().toLocalDate();
-        if (doctorLeaveService.isDoctorOnLeave(appointment.getDoctor().getId(), appointmentDate)) {
-            throw new RuntimeException("Cannot book appointment. Doctor is on leave for the selected date: " + appointmentDate);
-        }
-        
         // Find the patient
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found with id: " + patientId));
         
-        // Update the appointment
-        AppointmentStatus fromStatus = appointment.getStatus();
-        appointment.setPatient(patient);
-        appointment.setStatus(AppointmentStatus.BOOKED);
-        // Ensure fee populated (legacy slots)
-        if (appointment.getAppointmentFee() == null && appointment.getDoctor() != null) {
-            appointment.setAppointmentFee(appointment.getDoctor().getFee());
-        }
+        // Book the slot in one conditional update that also records the history entry;
+        // a lost race fails right here
+        String historyLine = statusHistoryRecorder.record(appointmentId, AppointmentStatus.AVAILABLE,
+                AppointmentStatus.BOOKED, "PATIENT:" + patientId, "Booked appointment");
+        Appointment updatedAppointment = appointmentSlotBooker.book(appointmentId, patient, historyLine);
         
-        // Save the updated appointment
-        Appointment updatedAppointment = appointmentRepository.save(appointment);
-
-        // Write history record for booking
-        AppointmentStatusHistory history = new AppointmentStatusHistory();
-        history.setAppointment(updatedAppointment);
-        history.setFromStatus(fromStatus);
-        history.setToStatus(AppointmentStatus.BOOKED);
-        history.setChangedAt(java.time.LocalDateTime.now());
-        history.setChangedBy("PATIENT:" + patientId);
-        history.setNote("Booked appointment");
-        appointmentStatusHistoryRepository.save(history);
+        // Check if doctor is on leave for the appointment date (rolls the booking back)
+        LocalDate appointmentDate = updatedAppointment.getAppointmentTime().toLocalDate();
+        if (doctorLeaveService.isDoctorOnLeave(updatedAppointment.getDoctor().getId(), appointmentDate)) {
+            throw new RuntimeException("Cannot book appointment. Doctor is on leave for the selected date: " + appointmentDate);
+        }
+
+        publishScheduleChange(updatedAppointment);
 
         return convertToDTO(updatedAppointment);
     }
     
     @Override
+    @Transactional
     public AppointmentDTO confirmReservation(int appointmentId, int patientId) {
-        // Get the appointment
-        Appointment appointment = appointmentRepository.findById(appointmentId)
-                .orElseThrow(() -> new RuntimeException("Appointment not found: " + appointmentId));
-        
-        // Verify it's reserved by this patient
-        if (appointment.getReservedByPatientId() == null) {
-            throw new RuntimeException("Appointment is not reserved");
-        }
-        
-        if (!appointment.getReservedByPatientId().equals(patientId)) {
-            throw new RuntimeException("Appointment is reserved by another patient");
-        }
-        
-        // Check if reservation has expired
-        if (appointment.getReservationExpiresAt() != null && 
-            appointment.getReservationExpiresAt().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Reservation has expired");
-        }
-        
         // Get the patient
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found: " + patientId));
         
-        // Confirm the booking
-        AppointmentStatus fromStatus = appointment.getStatus();
-        appointment.setPatient(patient);
-        appointment.setStatus(AppointmentStatus.BOOKED);
-        appointment.setReservedByPatientId(null);
-        appointment.setReservationExpiresAt(null);
-        // Ensure fee populated (legacy slots)
-        if (appointment.getAppointmentFee() == null && appointment.getDoctor() != null) {
-            appointment.setAppointmentFee(appointment.getDoctor().getFee());
-        }
-        
-        Appointment confirmedAppointment = appointmentRepository.save(appointment);
+        // Confirm the booking only while this patient's reservation is still live
+        String historyLine = statusHistoryRecorder.record(appointmentId, AppointmentStatus.AVAILABLE,
+                AppointmentStatus.BOOKED, "PATIENT:" + patientId, "Confirmed reserved appointment");
+        Appointment confirmedAppointment = appointmentSlotBooker.bookReserved(appointmentId, patient, historyLine);
         
-        // Write history record
-        AppointmentStatusHistory history = new AppointmentStatusHistory();
-        history.setAppointment(confirmedAppointment);
-        history.setFromStatus(fromStatus);
-        history.setToStatus(AppointmentStatus.BOOKED);
-        history.setChangedAt(LocalDateTime.now());
-        history.setChangedBy("PATIENT:" + patientId);
-        history.setNote("Confirmed reserved appointment");
-        appointmentStatusHistoryRepository.save(history);
+        publishScheduleChange(confirmedAppointment);
         
         return convertToDTO(confirmedAppointment);
     }
@@ -0,0 +1,143 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.exception.SlotConflictException;
+import com.doctor.appointment.model.Appointment;
+import com.doctor.appointment.model.AppointmentStatus;
+import com.doctor.appointment.model.Patient;
+import com.doctor.appointment.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Booking primitive shared by every booking path.
+ *
+ * A slot is booked with one conditional UPDATE, so two patients racing for the same slot
+ * cannot both win and the loser learns it immediately, without locks, retries or
+ * SERIALIZABLE transactions. Only when the UPDATE matches nothing is the row read, to
+ * explain why.
+ */
+@Component
+public class AppointmentSlotBooker {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ReservationExpiryWheel expiryWheel;
+
+    /**
+     * Book an AVAILABLE slot that is unreserved, reserved by this patient, or whose reservation expired.
+     * The history line (from StatusHistoryRecorder) is written by the same UPDATE.
+     *
+     * @return The booked appointment, freshly loaded
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Appointment book(int appointmentId, Patient patient, String historyLine) {
+        LocalDateTime now = LocalDateTime.now();
+        if (appointmentRepository.bookIfAvailable(appointmentId, patient, now, historyLine) == 0) {
+            throw explainFailure(appointmentId, patient.getId(), now, false);
+        }
+        return load(appointmentId);
+    }
+
+    /**
+     * Book an AVAILABLE slot only while this patient holds a live reservation on it.
+     * The history line (from StatusHistoryRecorder) is written by the same UPDATE.
+     *
+     * @return The booked appointment, freshly loaded
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Appointment bookReserved(int appointmentId, Patient patient, String historyLine) {
+        LocalDateTime now = LocalDateTime.now();
+        if (appointmentRepository.bookIfReservedBy(appointmentId, patient, now, historyLine) == 0) {
+            throw explainFailure(appointmentId, patient.getId(), now, true);
+        }
+        return load(appointmentId);
+    }
+
+    /**
+     * Book every slot of a recurring series with one conditional UPDATE, all or nothing.
+     * If any slot was taken, the exception rolls the caller's transaction back.
+     *
+     * @return The booked appointments in time order, freshly loaded
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Appointment> bookSeries(List<Integer> appointmentIds, Patient patient, String seriesId) {
+        LocalDateTime now = LocalDateTime.now();
+        int booked = appointmentRepository.bookSeriesIfAvailable(appointmentIds, patient, seriesId, now);
+        List<Appointment> appointments = appointmentRepository.findAllById(appointmentIds).stream()
+                .sorted(Comparator.comparing(Appointment::getAppointmentTime))
+                .toList();
+        if (booked != appointmentIds.size()) {
+            Appointment lost = appointments.stream()
+                    .filter(a -> !seriesId.equals(a.getSeriesId()))
+                    .findFirst()
+                    .orElse(null);
+            if (lost == null) {
+                throw new RuntimeException("Some appointment slots of the series were not found");
+            }
+            RuntimeException reason = explainFailure(lost.getId(), patient.getId(), now, false);
+            throw new SlotConflictException("The slot on " + lost.getAppointmentTime() + " could not be booked. "
+                    + reason.getMessage());
+        }
+        cancelExpiryAfterCommit(appointmentIds);
+        return appointments;
+    }
+
+    private Appointment load(int appointmentId) {
+        cancelExpiryAfterCommit(List.of(appointmentId));
+        return appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new RuntimeException("Appointment slot not found: " + appointmentId));
+    }
+
+    /**
+     * The booking clears any hold on the slots, so their expiry timers are no longer needed.
+     * They are cancelled only once the booking commits; a rolled back booking leaves the hold
+     * in place and its timer must still release it.
+     */
+    private void cancelExpiryAfterCommit(List<Integer> appointmentIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appointmentIds.forEach(expiryWheel::cancel);
+                }
+            });
+        } else {
+            appointmentIds.forEach(expiryWheel::cancel);
+        }
+    }
+
+    private RuntimeException explainFailure(int appointmentId, int patientId, LocalDateTime now, boolean reservationRequired) {
+        Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
+        if (appointment == null) {
+            return new RuntimeException("Appointment slot not found: " + appointmentId);
+        }
+        if (appointment.getStatus() != AppointmentStatus.AVAILABLE) {
+            return new SlotConflictException("This appointment slot is not available for booking. Current status: "
+                    + appointment.getStatus());
+        }
+
+        Integer holder = appointment.getReservedByPatientId();
+        boolean expired = appointment.getReservationExpiresAt() != null && appointment.getReservationExpiresAt().isBefore(now);
+        if (holder != null && holder != patientId && !expired) {
+            return new SlotConflictException("This slot is reserved by another user. Please select a different time slot.");
+        }
+        if (reservationRequired && holder == null) {
+            return new RuntimeException("Appointment is not reserved");
+        }
+        if (reservationRequired && expired) {
+            return new RuntimeException("Reservation has expired");
+        }
+        // The row changed between the UPDATE and this read
+        return new SlotConflictException("This appointment slot was just booked by another user. Please select a different time slot.");
+    }
+}
@@ -2,9 +2,13 @@ package com.doctor.appointment.service;
 
 import com.doctor.appointment.model.DTO.AppointmentDTO;
 import com.doctor.appointment.model.DTO.AvailableSlotDTO;
+import com.doctor.appointment.model.DTO.DayAvailabilitySummaryDTO;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Service for intelligent appointment slot generation based on:
@@ -35,6 +39,28 @@ public interface AppointmentSlotGenerationService {
      */
     List<AvailableSlotDTO> generateAvailableSlotsForDateRange(int doctorId, LocalDate startDate, LocalDate endDate);
     
+    /**
+     * Prepare a lazy walk over the free slots of a doctor for a date range.
+     * The doctor is resolved immediately; appointments are loaded one week at a time
+     * while walking, so memory does not grow with the width of the range.
+     * 
+     * @param doctorId The ID of the doctor
+     * @param startDate Start date of the range
+     * @param endDate End date of the range
+     * @return Walker over the free slots in start order
+     */
+    AvailableSlotStream openAvailableSlotStream(int doctorId, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * Count free, booked and on-leave slots per day of a month without building the slots.
+     * Booked time comes from one aggregate query; working hours and leaves from memory.
+     * 
+     * @param doctorId The ID of the doctor
+     * @param month The month to summarize
+     * @return One entry per day of the month
+     */
+    List<DayAvailabilitySummaryDTO> summarizeMonth(int doctorId, YearMonth month);
+    
     /**
      * Check if a specific time slot is available for booking
      * 
@@ -53,4 +79,32 @@ public interface AppointmentSlotGenerationService {
      * @return List of created appointment slots
      */
     List<AppointmentDTO> autoGenerateAndCreateSlots(int doctorId, LocalDate date);
+    
+    /**
+     * Persist AVAILABLE appointment slots for every free slot of a doctor in a date range.
+     * Slots are computed in memory and written with set-based inserts; times that already
+     * have an appointment row are skipped, so the call is idempotent.
+     * 
+     * @param doctorId The ID of the doctor
+     * @param startDate Start date of the range
+     * @param endDate End date of the range
+     * @return Number of slots created
+     */
+    int materializeSlots(int doctorId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Lazy sequence of free slots, produced in start order
+     */
+    @FunctionalInterface
+    interface AvailableSlotStream {
+        
+        /**
+         * Pass every free slot starting strictly after the given time to the consumer,
+         * stopping as soon as the consumer returns false
+         * 
+         * @param after Only slots starting after this time (null for all)
+         * @param consumer Receives slots; returns false to stop the walk
+         */
+        void forEach(LocalDateTime after, Predicate<AvailableSlotDTO> consumer);
+    }
 }
@@ -1,22 +1,30 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
 import com.doctor.appointment.model.*;
 import com.doctor.appointment.model.DTO.AppointmentDTO;
 import com.doctor.appointment.model.DTO.AvailableSlotDTO;
+import com.doctor.appointment.model.DTO.DayAvailabilitySummaryDTO;
 import com.doctor.appointment.repository.AppointmentRepository;
+import com.doctor.appointment.repository.AppointmentSlotJdbcRepository;
 import com.doctor.appointment.repository.DoctorRepository;
-import com.doctor.appointment.repository.WorkingHourRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
+import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class AppointmentSlotGenerationServiceImpl implements AppointmentSlotGenerationService {
@@ -25,18 +33,31 @@ public class AppointmentSlotGenerationServiceImpl implements AppointmentSlotGene
     private DoctorRepository doctorRepository;
     
     @Autowired
-    private WorkingHourRepository workingHourRepository;
+    private WeeklyScheduleCache weeklyScheduleCache;
     
     @Autowired
     private DoctorLeaveService doctorLeaveService;
     
     @Autowired
     private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private DoctorLeaveIndex doctorLeaveIndex;
+    
+    @Autowired
+    private AppointmentSlotJdbcRepository appointmentSlotJdbcRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Ranges at least this wide compute their days in parallel
+    private static final int PARALLEL_RANGE_THRESHOLD_DAYS = 14;
+
+    // Days of appointments loaded per query when streaming a range
+    private static final int STREAM_WINDOW_DAYS = 7;
 
     @Override
     public List<AvailableSlotDTO> generateAvailableSlots(int doctorId, LocalDate date) {
-        List<AvailableSlotDTO> availableSlots = new ArrayList<>();
-        
         // 1. Get doctor information
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
@@ -44,17 +65,15 @@ public class AppointmentSlotGenerationServiceImpl implements AppointmentSlotGene
         // 2. Check if doctor is on leave
         if (doctorLeaveService.isDoctorOnLeave(doctorId, date)) {
             // Return empty list if doctor is on leave
-            return availableSlots;
+            return new ArrayList<>();
         }
         
-        // 3. Get working hours for the day of week
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        List<WorkingHour> workingHours = workingHourRepository
-                .findByDoctorIdAndDayOfWeekOrderByStartTimeAsc(doctorId, dayOfWeek);
+        // 3. Get the working hour blocks effective on this date from the compiled schedule
+        int[] workingIntervals = weeklyScheduleCache.get(doctorId).intervalsOn(date);
         
-        if (workingHours.isEmpty()) {
+        if (workingIntervals.length == 0) {
             // No working hours defined for this day
-            return availableSlots;
+            return new ArrayList<>();
         }
         
         // 4. Get appointment duration (default 30 minutes if not set)
@@ -68,61 +87,149 @@ public class AppointmentSlotGenerationServiceImpl implements AppointmentSlotGene
         List<Appointment> existingAppointments = appointmentRepository
                 .findByDoctorIdAndAppointmentTimeBetween(doctorId, startOfDay, endOfDay);
         
-        // 6. Generate slots for each working hour block
-        for (WorkingHour workingHour : workingHours) {
-            // Check if working hour is effective for this date
-            if (!isWorkingHourEffective(workingHour, date)) {
-                continue;
-            }
-            
-            LocalTime currentTime = workingHour.getStartTime();
-            LocalTime endTime = workingHour.getEndTime();
+        // 6. Build the day's slots from the bitset
+        String doctorName = doctor.getUser() != null ? doctor.getUser().getName() : "Unknown";
+        return buildDaySlots(doctorId, doctorName, durationMinutes, date, workingIntervals, existingAppointments);
+    }
+
+    @Override
+    public List<AvailableSlotDTO> generateAvailableSlotsForDateRange(int doctorId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return new ArrayList<>();
+        }
+        
+        // Load everything the range needs up front; weekly hours and leaves come from in-memory indexes
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
+        int durationMinutes = doctor.getAppointmentDurationMinutes() != null 
+                ? doctor.getAppointmentDurationMinutes() 
+                : 30;
+        String doctorName = doctor.getUser() != null ? doctor.getUser().getName() : "Unknown";
+        
+        CompiledWeeklySchedule schedule = weeklyScheduleCache.get(doctorId);
+        
+        Map<LocalDate, List<Appointment>> appointmentsByDate = loadAppointmentsByDate(doctorId, startDate, endDate);
+        
+        // Compute every day in memory; wide ranges are split across the common fork-join pool
+        int days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        IntStream dayIndexes = IntStream.range(0, days);
+        if (days >= PARALLEL_RANGE_THRESHOLD_DAYS) {
+            dayIndexes = dayIndexes.parallel();
+        }
+        
+        return dayIndexes
+                .mapToObj(startDate::plusDays)
+                .map(date -> {
+                    if (doctorLeaveIndex.isOnLeave(doctorId, date)) {
+                        return List.<AvailableSlotDTO>of();
+                    }
+                    int[] workingIntervals = schedule.intervalsOn(date);
+                    if (workingIntervals.length == 0) {
+                        return List.<AvailableSlotDTO>of();
+                    }
+                    return buildDaySlots(doctorId, doctorName, durationMinutes, date, workingIntervals,
+                            appointmentsByDate.getOrDefault(date, List.of()));
+                })
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public AvailableSlotStream openAvailableSlotStream(int doctorId, LocalDate startDate, LocalDate endDate) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
+        int durationMinutes = doctor.getAppointmentDurationMinutes() != null 
+                ? doctor.getAppointmentDurationMinutes() 
+                : 30;
+        String doctorName = doctor.getUser() != null ? doctor.getUser().getName() : "Unknown";
+        
+        return (after, consumer) -> {
+            LocalDate from = after != null && after.toLocalDate().isAfter(startDate) ? after.toLocalDate() : startDate;
+            CompiledWeeklySchedule schedule = weeklyScheduleCache.get(doctorId);
             
-            while (currentTime.plusMinutes(durationMinutes).compareTo(endTime) <= 0) {
-                LocalDateTime slotStart = LocalDateTime.of(date, currentTime);
-                LocalDateTime slotEnd = slotStart.plusMinutes(durationMinutes);
-                
-                // Check if slot overlaps with existing appointments
-                boolean isOccupied = existingAppointments.stream()
-                        .anyMatch(apt -> isTimeOverlapping(slotStart, slotEnd, apt.getAppointmentTime(), 
-                                apt.getAppointmentTime().plusMinutes(durationMinutes)));
-                
-                AvailableSlotDTO slot = new AvailableSlotDTO();
-                slot.setStartTime(slotStart);
-                slot.setEndTime(slotEnd);
-                slot.setDurationMinutes(durationMinutes);
-                slot.setDoctorId(doctorId);
-                slot.setDoctorName(doctor.getUser() != null ? doctor.getUser().getName() : "Unknown");
-                slot.setAvailable(!isOccupied);
-                
-                if (isOccupied) {
-                    slot.setUnavailabilityReason("Already Booked");
-                    // Find the appointment ID if it exists
-                    existingAppointments.stream()
-                            .filter(apt -> apt.getAppointmentTime().equals(slotStart))
-                            .findFirst()
-                            .ifPresent(apt -> slot.setAppointmentId(apt.getId()));
+            for (LocalDate windowStart = from; !windowStart.isAfter(endDate);
+                 windowStart = windowStart.plusDays(STREAM_WINDOW_DAYS)) {
+                LocalDate windowEnd = windowStart.plusDays(STREAM_WINDOW_DAYS - 1);
+                if (windowEnd.isAfter(endDate)) {
+                    windowEnd = endDate;
                 }
+                Map<LocalDate, List<Appointment>> appointmentsByDate = loadAppointmentsByDate(doctorId, windowStart, windowEnd);
                 
-                availableSlots.add(slot);
-                currentTime = currentTime.plusMinutes(durationMinutes);
+                for (LocalDate date = windowStart; !date.isAfter(windowEnd); date = date.plusDays(1)) {
+                    int[] workingIntervals = schedule.intervalsOn(date);
+                    if (workingIntervals.length == 0 || doctorLeaveIndex.isOnLeave(doctorId, date)) {
+                        continue;
+                    }
+                    List<AvailableSlotDTO> daySlots = buildDaySlots(doctorId, doctorName, durationMinutes, date,
+                            workingIntervals, appointmentsByDate.getOrDefault(date, List.of()));
+                    for (AvailableSlotDTO slot : daySlots) {
+                        if (!slot.isAvailable() || (after != null && !slot.getStartTime().isAfter(after))) {
+                            continue;
+                        }
+                        if (!consumer.test(slot)) {
+                            return;
+                        }
+                    }
+                }
             }
-        }
-        
-        return availableSlots;
+        };
     }
 
     @Override
-    public List<AvailableSlotDTO> generateAvailableSlotsForDateRange(int doctorId, LocalDate startDate, LocalDate endDate) {
-        List<AvailableSlotDTO> allSlots = new ArrayList<>();
+    public List<DayAvailabilitySummaryDTO> summarizeMonth(int doctorId, YearMonth month) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
+        int durationMinutes = doctor.getAppointmentDurationMinutes() != null 
+                ? doctor.getAppointmentDurationMinutes() 
+                : 30;
+        CompiledWeeklySchedule schedule = weeklyScheduleCache.get(doctorId);
+        LocalDate firstDay = month.atDay(1);
+        LocalDate lastDay = month.atEndOfMonth();
         
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            allSlots.addAll(generateAvailableSlots(doctorId, currentDate));
-            currentDate = currentDate.plusDays(1);
+        // Occupied start times of the whole month in one query, deduplicated by the database
+        Map<LocalDate, List<Integer>> occupiedSecondsByDay = new HashMap<>();
+        for (Object[] row : appointmentRepository.findOccupiedStartsPerDay(
+                doctorId, firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay())) {
+            LocalDate day = row[0] instanceof Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) row[0];
+            occupiedSecondsByDay.computeIfAbsent(day, d -> new ArrayList<>()).add(((Number) row[1]).intValue());
         }
         
-        return allSlots;
+        List<DayAvailabilitySummaryDTO> summary = new ArrayList<>(month.lengthOfMonth());
+        for (LocalDate date = firstDay; !date.isAfter(lastDay); date = date.plusDays(1)) {
+            int[] workingIntervals = schedule.intervalsOn(date);
+            DayAvailabilitySummaryDTO dayCounts = new DayAvailabilitySummaryDTO(date, 0, 0, 0);
+            summary.add(dayCounts);
+            if (workingIntervals.length == 0) {
+                continue;
+            }
+            
+            if (doctorLeaveIndex.isOnLeave(doctorId, date)) {
+                int slotCount = 0;
+                for (int i = 0; i < workingIntervals.length; i += 2) {
+                    slotCount += (workingIntervals[i + 1] - workingIntervals[i]) / durationMinutes;
+                }
+                dayCounts.setOnLeaveSlots(slotCount);
+                continue;
+            }
+            
+            DayAvailability day = new DayAvailability();
+            for (int secondOfDay : occupiedSecondsByDay.getOrDefault(date, List.of())) {
+                // Same whole-minute widening as DayAvailability.addAppointment
+                int fromMinute = secondOfDay / 60;
+                day.markBusy(fromMinute, fromMinute + durationMinutes + (secondOfDay % 60 == 0 ? 0 : 1));
+            }
+            for (int i = 0; i < workingIntervals.length; i += 2) {
+                for (int minute = workingIntervals[i]; minute + durationMinutes <= workingIntervals[i + 1];
+                     minute += durationMinutes) {
+                    if (day.isBusy(minute, minute + durationMinutes)) {
+                        dayCounts.setBookedSlots(dayCounts.getBookedSlots() + 1);
+                    } else {
+                        dayCounts.setFreeSlots(dayCounts.getFreeSlots() + 1);
+                    }
+                }
+            }
+        }
+        return summary;
     }
 
     @Override
@@ -135,16 +242,7 @@ public class AppointmentSlotGenerationServiceImpl implements AppointmentSlotGene
         }
         
         // Check if time falls within working hours
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        List<WorkingHour> workingHours = workingHourRepository
-                .findByDoctorIdAndDayOfWeekOrderByStartTimeAsc(doctorId, dayOfWeek);
-        
-        LocalTime time = dateTime.toLocalTime();
-        boolean withinWorkingHours = workingHours.stream()
-                .filter(wh -> isWorkingHourEffective(wh, date))
-                .anyMatch(wh -> !time.isBefore(wh.getStartTime()) && time.isBefore(wh.getEndTime()));
-        
-        if (!withinWorkingHours) {
+        if (!weeklyScheduleCache.get(doctorId).isWorkingAt(date, dateTime.toLocalTime())) {
             return false;
         }
         
@@ -160,7 +258,10 @@ public class AppointmentSlotGenerationServiceImpl implements AppointmentSlotGene
         List<Appointment> existingAppointments = appointmentRepository
                 .findByDoctorIdAndAppointmentTimeBetween(doctorId, dateTime.minusMinutes(durationMinutes), slotEnd);
         
+        // Materialized AVAILABLE rows and cancelled rows do not occupy time, same as in slot generation
         return existingAppointments.stream()
+                .filter(apt -> apt.getStatus() != AppointmentStatus.AVAILABLE
+                        && apt.getStatus() != AppointmentStatus.CANCELLED)
                 .noneMatch(apt -> isTimeOverlapping(dateTime, slotEnd, apt.getAppointmentTime(), 
                         apt.getAppointmentTime().plusMinutes(durationMinutes)));
     }
@@ -168,46 +269,123 @@ public class AppointmentSlotGenerationServiceImpl implements AppointmentSlotGene
     @Override
     @Transactional
     public List<AppointmentDTO> autoGenerateAndCreateSlots(int doctorId, LocalDate date) {
-        List<AppointmentDTO> createdSlots = new ArrayList<>();
-        
         // Generate available slots
         List<AvailableSlotDTO> availableSlots = generateAvailableSlots(doctorId, date);
         
-        // Filter only truly available slots (not occupied)
-        List<AvailableSlotDTO> slotsToCreate = availableSlots.stream()
-                .filter(AvailableSlotDTO::isAvailable)
+        // Filter only truly available slots (not occupied and not created yet)
+        List<LocalDateTime> slotTimes = availableSlots.stream()
+                .filter(slot -> slot.isAvailable() && slot.getAppointmentId() == null)
+                .map(AvailableSlotDTO::getStartTime)
                 .collect(Collectors.toList());
         
         // Get doctor
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
+        if (slotTimes.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        // Create appointment entities for each available slot
-        for (AvailableSlotDTO slotDTO : slotsToCreate) {
-            Appointment appointment = new Appointment();
-            appointment.setDoctor(doctor);
-            appointment.setAppointmentTime(slotDTO.getStartTime());
-            appointment.setStatus(AppointmentStatus.AVAILABLE);
-            appointment.setReason("Available Appointment Slot");
-            
-            Appointment saved = appointmentRepository.save(appointment);
-            createdSlots.add(convertToDTO(saved));
+        // Times a concurrent run has materialized in the meantime are skipped, not duplicated
+        List<Integer> createdIds = appointmentSlotJdbcRepository
+                .insertAvailableSlotsReturningIds(doctorId, doctor.getFee(), slotTimes);
+        List<AppointmentDTO> createdSlots = appointmentRepository.findAllById(createdIds).stream()
+                .sorted(Comparator.comparing(Appointment::getAppointmentTime))
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        
+        if (!createdSlots.isEmpty()) {
+            eventPublisher.publishEvent(DoctorScheduleChangedEvent.forDate(
+                    doctorId, DoctorScheduleChangedEvent.Kind.APPOINTMENTS, date));
         }
         
         return createdSlots;
     }
     
+    @Override
+    @Transactional
+    public int materializeSlots(int doctorId, LocalDate startDate, LocalDate endDate) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
+        
+        List<LocalDateTime> slotTimes = generateAvailableSlotsForDateRange(doctorId, startDate, endDate).stream()
+                .filter(slot -> slot.isAvailable() && slot.getAppointmentId() == null)
+                .map(AvailableSlotDTO::getStartTime)
+                .collect(Collectors.toList());
+        if (slotTimes.isEmpty()) {
+            return 0;
+        }
+        
+        int created = appointmentSlotJdbcRepository.insertAvailableSlots(doctorId, doctor.getFee(), slotTimes);
+        if (created > 0) {
+            eventPublisher.publishEvent(new DoctorScheduleChangedEvent(
+                    doctorId, DoctorScheduleChangedEvent.Kind.APPOINTMENTS, startDate, endDate));
+        }
+        return created;
+    }
+    
     /**
-     * Check if a working hour is effective for a given date
+     * Compute the slots of one day from already-loaded working hours and appointments
      */
-    private boolean isWorkingHourEffective(WorkingHour workingHour, LocalDate date) {
-        if (workingHour.getEffectiveStartDate() != null && date.isBefore(workingHour.getEffectiveStartDate())) {
-            return false;
+    private List<AvailableSlotDTO> buildDaySlots(int doctorId, String doctorName, int durationMinutes, LocalDate date,
+                                                 int[] workingIntervals, List<Appointment> existingAppointments) {
+        List<AvailableSlotDTO> slots = new ArrayList<>();
+        
+        DayAvailability day = new DayAvailability();
+        for (Appointment apt : existingAppointments) {
+            // Cancelled rows free their time (the slot is reopened as a new AVAILABLE row)
+            if (apt.getStatus() == AppointmentStatus.CANCELLED) {
+                continue;
+            }
+            // Materialized AVAILABLE rows are bookable slots, not occupied time
+            day.addAppointment(apt.getId(), apt.getAppointmentTime(), durationMinutes,
+                    apt.getStatus() != AppointmentStatus.AVAILABLE);
         }
-        if (workingHour.getEffectiveEndDate() != null && date.isAfter(workingHour.getEffectiveEndDate())) {
-            return false;
+        
+        // Intervals are already restricted to the blocks effective on this date
+        for (int i = 0; i < workingIntervals.length; i += 2) {
+            addSlots(slots, day, date, workingIntervals[i], workingIntervals[i + 1], durationMinutes, doctorId, doctorName);
+        }
+        
+        return slots;
+    }
+    
+    /**
+     * Load a doctor's appointments in [startDate, endDate] with one query, grouped by day
+     */
+    private Map<LocalDate, List<Appointment>> loadAppointmentsByDate(int doctorId, LocalDate startDate, LocalDate endDate) {
+        return appointmentRepository
+                .findByDoctorIdAndAppointmentTimeBetween(doctorId, startDate.atStartOfDay(),
+                        endDate.plusDays(1).atStartOfDay().minusSeconds(1)).stream()
+                .collect(Collectors.groupingBy(apt -> apt.getAppointmentTime().toLocalDate()));
+    }
+    
+    /**
+     * Append the grid of slots of one working hour block [startMinute, endMinute) to the list.
+     * A slot is occupied when any minute it covers is busy in the day bitset.
+     */
+    private void addSlots(List<AvailableSlotDTO> slots, DayAvailability day, LocalDate date,
+                          int startMinute, int endMinute, int durationMinutes, int doctorId, String doctorName) {
+        LocalDateTime dayStart = date.atStartOfDay();
+        for (int minute = startMinute; minute + durationMinutes <= endMinute; minute += durationMinutes) {
+            LocalDateTime slotStart = dayStart.plusMinutes(minute);
+            boolean isOccupied = day.isBusy(minute, minute + durationMinutes);
+            
+            AvailableSlotDTO slot = new AvailableSlotDTO();
+            slot.setStartTime(slotStart);
+            slot.setEndTime(slotStart.plusMinutes(durationMinutes));
+            slot.setDurationMinutes(durationMinutes);
+            slot.setDoctorId(doctorId);
+            slot.setDoctorName(doctorName);
+            slot.setAvailable(!isOccupied);
+            // Free slots carry the id of their materialized AVAILABLE row, if any
+            slot.setAppointmentId(day.appointmentIdAt(minute));
+            
+            if (isOccupied) {
+                slot.setUnavailabilityReason("Already Booked");
+            }
+            
+            slots.add(slot);
         }
-        return true;
     }
     
     /**
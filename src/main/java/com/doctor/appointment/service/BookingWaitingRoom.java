@@ -0,0 +1,345 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.exception.AdmissionRequiredException;
+import com.doctor.appointment.exception.ResourceNotFoundException;
+import com.doctor.appointment.model.DTO.WaitingRoomTicketDTO;
+import com.doctor.appointment.repository.AppointmentRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room in front of reserve and book-with-payment during high-demand windows.
+ *
+ * An admin opens a room for a doctor (for example when a specialist's calendar is released).
+ * While it is open, patients take a FIFO ticket, poll their queue position, and are admitted at
+ * a fixed rate per doctor. Admission hands out a short-lived signed token (HS256) bound to the
+ * doctor and the patient; reserving or booking one of that doctor's slots requires it. The
+ * database only ever sees the admitted rate, so the connection pool stays healthy during launch
+ * spikes and admitted patients get normal latency.
+ *
+ * Tickets that stop polling are dropped when they reach the head of the queue. Doctors without
+ * an open room are not affected. Rooms live in memory, so a multi-instance deployment should
+ * route a doctor's waiting room to one instance and share booking.waiting-room.secret.
+ */
+@Component
+public class BookingWaitingRoom {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingWaitingRoom.class);
+
+    public static final String ADMISSION_TOKEN_HEADER = "X-Admission-Token";
+
+    private static final String TOKEN_SUBJECT = "booking-admission";
+
+    @Value("${booking.waiting-room.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.waiting-room.admission-rate-per-second:20}")
+    private double admissionRatePerSecond;
+
+    @Value("${booking.waiting-room.tick-millis:250}")
+    private long tickMillis;
+
+    @Value("${booking.waiting-room.max-queue-size:20000}")
+    private int maxQueueSize;
+
+    @Value("${booking.waiting-room.ticket-timeout-seconds:30}")
+    private long ticketTimeoutSeconds;
+
+    @Value("${booking.waiting-room.token-ttl-seconds:600}")
+    private long tokenTtlSeconds;
+
+    @Value("${booking.waiting-room.secret:}")
+    private String secret;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private Key signingKey;
+
+    // Open rooms by doctor id
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (secret == null || secret.isBlank()) {
+            // Tokens then only verify on this instance, which matches the in-memory rooms
+            signingKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        } else {
+            signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Open (or extend) the waiting room of a doctor until the given time
+     */
+    public void open(int doctorId, LocalDateTime until) {
+        if (!enabled) {
+            throw new RuntimeException("The waiting room is disabled (booking.waiting-room.enabled)");
+        }
+        if (!until.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Closing time must be in the future");
+        }
+        rooms.compute(doctorId, (id, room) -> {
+            if (room == null) {
+                room = new Room(id);
+            }
+            room.closesAt = until;
+            return room;
+        });
+        logger.info("Waiting room opened for doctor {} until {}", doctorId, until);
+    }
+
+    /**
+     * Close the waiting room of a doctor; booking goes back to unrestricted
+     */
+    public void close(int doctorId) {
+        Room room = rooms.remove(doctorId);
+        if (room != null) {
+            discard(room);
+            logger.info("Waiting room closed for doctor {}", doctorId);
+        }
+    }
+
+    public boolean isOpen(int doctorId) {
+        return rooms.containsKey(doctorId);
+    }
+
+    /**
+     * Take a place in the doctor's queue; a patient who already holds a live ticket gets it back
+     */
+    public WaitingRoomTicketDTO join(int doctorId, int patientId) {
+        Room room = rooms.get(doctorId);
+        if (room == null) {
+            throw new ResourceNotFoundException("Waiting room", "doctorId", doctorId);
+        }
+        long now = System.currentTimeMillis();
+        Ticket ticket = room.byPatient.compute(patientId, (id, existing) -> {
+            if (existing != null && existing.isLive(now)) {
+                existing.lastSeenMillis = now;
+                return existing;
+            }
+            if (existing != null) {
+                tickets.remove(existing.id);
+            }
+            if (room.waitingCount.get() >= maxQueueSize) {
+                throw new RuntimeException("The waiting room is full. Please try again shortly.");
+            }
+            Ticket created = new Ticket(UUID.randomUUID().toString(), doctorId, patientId,
+                    room.issued.incrementAndGet(), now);
+            tickets.put(created.id, created);
+            room.waitingCount.incrementAndGet();
+            room.waiting.add(created);
+            return created;
+        });
+        return toDto(room, ticket);
+    }
+
+    /**
+     * Current queue position of a ticket, or its admission token once admitted
+     */
+    public WaitingRoomTicketDTO poll(String ticketId, int patientId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null || ticket.patientId != patientId) {
+            throw new ResourceNotFoundException("Waiting room ticket", "ticketId", ticketId);
+        }
+        Room room = rooms.get(ticket.doctorId);
+        if (room == null) {
+            throw new ResourceNotFoundException("Waiting room", "doctorId", ticket.doctorId);
+        }
+        ticket.lastSeenMillis = System.currentTimeMillis();
+        return toDto(room, ticket);
+    }
+
+    /**
+     * Check the admission token of a reserve or book request for the given slot.
+     * Passes without a token when the slot's doctor has no open waiting room.
+     */
+    public void verifyAdmission(int appointmentId, int patientId, String token) {
+        if (rooms.isEmpty()) {
+            return;
+        }
+        Integer doctorId = appointmentRepository.findDoctorIdById(appointmentId);
+        if (doctorId != null) {
+            verifyDoctorAdmission(doctorId, patientId, token);
+        }
+    }
+
+    /**
+     * Check the admission token of a request that books several slots of one doctor
+     */
+    public void verifyDoctorAdmission(int doctorId, int patientId, String token) {
+        if (!rooms.containsKey(doctorId)) {
+            return;
+        }
+        if (token == null || token.isBlank()) {
+            throw new AdmissionRequiredException(
+                    "Booking for this doctor is going through a waiting room. Please join the queue first.");
+        }
+        Claims claims;
+        try {
+            claims = Jwts.parserBuilder()
+                    .setSigningKey(signingKey)
+                    .requireSubject(TOKEN_SUBJECT)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new AdmissionRequiredException("Admission token is invalid or has expired. Please rejoin the queue.");
+        }
+        if (!Integer.valueOf(doctorId).equals(claims.get("doctorId", Integer.class))
+                || !Integer.valueOf(patientId).equals(claims.get("patientId", Integer.class))) {
+            throw new AdmissionRequiredException("Admission token was issued for a different doctor or patient.");
+        }
+    }
+
+    /**
+     * Admit the next patients of every open room at the configured rate and close lapsed rooms
+     */
+    @Scheduled(fixedRateString = "${booking.waiting-room.tick-millis:250}")
+    public void admit() {
+        if (rooms.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        LocalDateTime closingCheck = LocalDateTime.now();
+        for (Room room : rooms.values()) {
+            if (!room.closesAt.isAfter(closingCheck)) {
+                close(room.doctorId);
+                continue;
+            }
+            try {
+                room.admit(now);
+            } catch (Exception e) {
+                logger.error("Waiting room admission failed for doctor {}", room.doctorId, e);
+            }
+        }
+    }
+
+    private void discard(Room room) {
+        room.byPatient.values().forEach(ticket -> tickets.remove(ticket.id));
+    }
+
+    private WaitingRoomTicketDTO toDto(Room room, Ticket ticket) {
+        String token = ticket.token;
+        if (token != null) {
+            return new WaitingRoomTicketDTO(ticket.id, ticket.doctorId, ticket.patientId, true, 0, 0, token,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(ticket.tokenExpiresMillis), ZoneId.systemDefault()));
+        }
+        // Abandoned tickets ahead are counted too, so this is an upper bound
+        long position = Math.max(1, ticket.number - room.admittedThrough);
+        long estimatedWait = (long) Math.ceil(position / admissionRatePerSecond);
+        return new WaitingRoomTicketDTO(ticket.id, ticket.doctorId, ticket.patientId, false, position, estimatedWait,
+                null, null);
+    }
+
+    private String issueToken(Ticket ticket, long now) {
+        return Jwts.builder()
+                .setSubject(TOKEN_SUBJECT)
+                .claim("doctorId", ticket.doctorId)
+                .claim("patientId", ticket.patientId)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(ticket.tokenExpiresMillis))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private final class Room {
+        private final int doctorId;
+        private volatile LocalDateTime closesAt;
+
+        private final ConcurrentLinkedQueue<Ticket> waiting = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger waitingCount = new AtomicInteger();
+        private final Map<Integer, Ticket> byPatient = new ConcurrentHashMap<>();
+        private final AtomicLong issued = new AtomicLong();
+
+        // Admitted tickets in admission order, so their token expiries are ascending too
+        private final ConcurrentLinkedQueue<Ticket> admitted = new ConcurrentLinkedQueue<>();
+        private volatile long admittedThrough;
+
+        // Token bucket; only touched by the admission tick
+        private double credit;
+
+        Room(int doctorId) {
+            this.doctorId = doctorId;
+        }
+
+        void admit(long now) {
+            forgetExpired(now);
+
+            // Cap the bucket at one second of admissions so an idle room cannot release a burst
+            credit = Math.min(credit + admissionRatePerSecond * tickMillis / 1000.0, Math.max(1, admissionRatePerSecond));
+            Ticket ticket;
+            while (credit >= 1 && (ticket = waiting.poll()) != null) {
+                waitingCount.decrementAndGet();
+                admittedThrough = ticket.number;
+                if (now - ticket.lastSeenMillis > ticketTimeoutSeconds * 1000) {
+                    // Stopped polling; do not spend an admission on it
+                    byPatient.remove(ticket.patientId, ticket);
+                    tickets.remove(ticket.id);
+                    continue;
+                }
+                ticket.tokenExpiresMillis = now + tokenTtlSeconds * 1000;
+                ticket.token = issueToken(ticket, now);
+                admitted.add(ticket);
+                credit -= 1;
+            }
+        }
+
+        private void forgetExpired(long now) {
+            Ticket head;
+            while ((head = admitted.peek()) != null && head.tokenExpiresMillis <= now) {
+                admitted.poll();
+                byPatient.remove(head.patientId, head);
+                tickets.remove(head.id);
+            }
+        }
+    }
+
+    private static final class Ticket {
+        private final String id;
+        private final int doctorId;
+        private final int patientId;
+        private final long number;
+        private volatile long lastSeenMillis;
+        private volatile String token;
+        private volatile long tokenExpiresMillis;
+
+        Ticket(String id, int doctorId, int patientId, long number, long now) {
+            this.id = id;
+            this.doctorId = doctorId;
+            this.patientId = patientId;
+            this.number = number;
+            this.lastSeenMillis = now;
+        }
+
+        // Still queued (dropped tickets leave the room), or admitted with an unexpired token
+        boolean isLive(long now) {
+            return token == null || tokenExpiresMillis > now;
+        }
+    }
+}
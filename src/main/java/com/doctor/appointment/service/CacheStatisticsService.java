@@ -0,0 +1,70 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.DTO.CacheStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hit/miss counters of the Hibernate second-level and query caches, per region
+ */
+@Service
+public class CacheStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheStatisticsService.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public CacheStatsDTO getStats() {
+        Statistics statistics = sessionFactory().getStatistics();
+        List<CacheStatsDTO.Region> regions = new ArrayList<>();
+        String[] names = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(names);
+        for (String name : names) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.add(new CacheStatsDTO.Region(name, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory(),
+                        hitRatio(region.getHitCount(), region.getMissCount())));
+            }
+        }
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long misses = statistics.getSecondLevelCacheMissCount();
+        return new CacheStatsDTO(statistics.getStart(), hits, misses, statistics.getSecondLevelCachePutCount(),
+                hitRatio(hits, misses), statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                regions);
+    }
+
+    /**
+     * Reset all counters (the cached data is kept)
+     */
+    public void resetStats() {
+        sessionFactory().getStatistics().clear();
+    }
+
+    /**
+     * Drop everything from the second-level and query caches, e.g. after rows were changed by hand in the database
+     */
+    public void evictAll() {
+        sessionFactory().getCache().evictAllRegions();
+        logger.info("Evicted all second-level cache regions");
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
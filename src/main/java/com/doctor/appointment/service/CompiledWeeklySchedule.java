@@ -0,0 +1,140 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.WorkingHour;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable, pre-resolved form of a doctor's weekly working hours.
+ *
+ * For each day of week the working hour blocks are stored as [start, end) minute pairs in
+ * start order. Effective-date windows are resolved when compiling: the dates on which the
+ * set of effective blocks changes become sorted breakpoints, and every segment between two
+ * breakpoints holds its own interval array. A lookup is one binary search on the epoch day.
+ */
+public final class CompiledWeeklySchedule {
+
+    private static final int[] NO_INTERVALS = new int[0];
+
+    public static final CompiledWeeklySchedule EMPTY = compile(List.of());
+
+    // Indexed by DayOfWeek.ordinal()
+    private final DaySchedule[] days;
+
+    private CompiledWeeklySchedule(DaySchedule[] days) {
+        this.days = days;
+    }
+
+    /**
+     * Compile the working hours of one doctor
+     */
+    public static CompiledWeeklySchedule compile(List<WorkingHour> workingHours) {
+        DaySchedule[] days = new DaySchedule[DayOfWeek.values().length];
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            List<WorkingHour> blocks = workingHours.stream()
+                    .filter(wh -> wh.getDayOfWeek() == dayOfWeek)
+                    .sorted(Comparator.comparing(WorkingHour::getStartTime))
+                    .toList();
+            days[dayOfWeek.ordinal()] = DaySchedule.compile(blocks);
+        }
+        return new CompiledWeeklySchedule(days);
+    }
+
+    /**
+     * Working hour blocks effective on the given date as [start, end) minute pairs, in start order.
+     * The returned array is shared and must not be modified.
+     */
+    public int[] intervalsOn(LocalDate date) {
+        return days[date.getDayOfWeek().ordinal()].intervalsOn(date.toEpochDay());
+    }
+
+    /**
+     * @return true if the given time of the given date falls inside an effective working hour block
+     */
+    public boolean isWorkingAt(LocalDate date, LocalTime time) {
+        int minute = DayAvailability.minuteOfDay(time);
+        int[] intervals = intervalsOn(date);
+        for (int i = 0; i < intervals.length; i += 2) {
+            if (minute >= intervals[i] && minute < intervals[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class DaySchedule {
+
+        // Epoch days on which the set of effective blocks changes, ascending
+        private final long[] breakpoints;
+
+        // segments[i] applies to days in [breakpoints[i - 1], breakpoints[i])
+        private final int[][] segments;
+
+        private DaySchedule(long[] breakpoints, int[][] segments) {
+            this.breakpoints = breakpoints;
+            this.segments = segments;
+        }
+
+        static DaySchedule compile(List<WorkingHour> blocks) {
+            TreeSet<Long> changes = new TreeSet<>();
+            for (WorkingHour block : blocks) {
+                if (block.getEffectiveStartDate() != null) {
+                    changes.add(block.getEffectiveStartDate().toEpochDay());
+                }
+                if (block.getEffectiveEndDate() != null) {
+                    changes.add(block.getEffectiveEndDate().toEpochDay() + 1);
+                }
+            }
+            long[] breakpoints = changes.stream().mapToLong(Long::longValue).toArray();
+
+            int[][] segments = new int[breakpoints.length + 1][];
+            for (int i = 0; i < segments.length; i++) {
+                // Any day of the segment decides which blocks are effective in it
+                long representative = i == 0
+                        ? (breakpoints.length == 0 ? 0 : breakpoints[0] - 1)
+                        : breakpoints[i - 1];
+                segments[i] = effectiveIntervals(blocks, representative);
+            }
+            return new DaySchedule(breakpoints, segments);
+        }
+
+        int[] intervalsOn(long epochDay) {
+            int index = Arrays.binarySearch(breakpoints, epochDay);
+            // Number of breakpoints <= epochDay is the segment index
+            int segment = index >= 0 ? index + 1 : -index - 1;
+            return segments[segment];
+        }
+
+        private static int[] effectiveIntervals(List<WorkingHour> blocks, long epochDay) {
+            List<int[]> effective = new ArrayList<>();
+            for (WorkingHour block : blocks) {
+                if (block.getEffectiveStartDate() != null && epochDay < block.getEffectiveStartDate().toEpochDay()) {
+                    continue;
+                }
+                if (block.getEffectiveEndDate() != null && epochDay > block.getEffectiveEndDate().toEpochDay()) {
+                    continue;
+                }
+                effective.add(new int[] {
+                        DayAvailability.minuteOfDay(block.getStartTime()),
+                        DayAvailability.minuteOfDay(block.getEndTime())
+                });
+            }
+            if (effective.isEmpty()) {
+                return NO_INTERVALS;
+            }
+            int[] intervals = new int[effective.size() * 2];
+            for (int i = 0; i < effective.size(); i++) {
+                intervals[2 * i] = effective.get(i)[0];
+                intervals[2 * i + 1] = effective.get(i)[1];
+            }
+            return intervals;
+        }
+    }
+}
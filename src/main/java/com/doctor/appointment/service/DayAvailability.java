@@ -0,0 +1,132 @@
+package com.doctor.appointment.service;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Compact availability map of a single doctor-day.
+ *
+ * Each minute of the day is one bit of a "busy" bitset that marks minutes covered by
+ * existing appointments. Checking whether a slot overlaps any of them is answered with
+ * word-level operations on 23 longs instead of comparing LocalDateTime objects.
+ */
+public final class DayAvailability {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int WORDS = (MINUTES_PER_DAY + 63) >>> 6;
+
+    private final long[] busy = new long[WORDS];
+
+    // Appointment id keyed by the minute it starts on (only for appointments starting on a whole minute)
+    private int[] appointmentIdAtMinute;
+
+    /**
+     * Mark [fromMinute, toMinute) as busy
+     */
+    public void markBusy(int fromMinute, int toMinute) {
+        setRange(busy, fromMinute, toMinute);
+    }
+
+    /**
+     * Register an existing appointment of the given length that starts on this day.
+     * The busy range is widened to whole minutes so that a minute-aligned slot overlaps
+     * the appointment exactly when the original LocalDateTime comparison would say so.
+     */
+    public void addAppointment(int appointmentId, LocalDateTime start, int durationMinutes) {
+        addAppointment(appointmentId, start, durationMinutes, true);
+    }
+
+    /**
+     * Register an existing appointment row. Rows that do not occupy time (materialized
+     * AVAILABLE slots) only record their id so the free slot can point at the bookable row.
+     */
+    public void addAppointment(int appointmentId, LocalDateTime start, int durationMinutes, boolean occupiesTime) {
+        LocalTime time = start.toLocalTime();
+        int fromMinute = time.getHour() * 60 + time.getMinute();
+        boolean minuteAligned = time.getSecond() == 0 && time.getNano() == 0;
+        if (occupiesTime) {
+            int toMinute = fromMinute + durationMinutes + (minuteAligned ? 0 : 1);
+            markBusy(fromMinute, toMinute);
+        }
+
+        if (minuteAligned) {
+            if (appointmentIdAtMinute == null) {
+                appointmentIdAtMinute = new int[MINUTES_PER_DAY];
+            }
+            // Occupying rows are stored positive and win over AVAILABLE rows (stored negative);
+            // otherwise the first row found is kept, like findFirst()
+            int stored = appointmentIdAtMinute[fromMinute];
+            if (stored == 0 || (occupiesTime && stored < 0)) {
+                appointmentIdAtMinute[fromMinute] = occupiesTime ? appointmentId + 1 : -(appointmentId + 1);
+            }
+        }
+    }
+
+    /**
+     * @return the id of the appointment starting exactly at the given minute, or null
+     */
+    public Integer appointmentIdAt(int minute) {
+        if (appointmentIdAtMinute == null || minute < 0 || minute >= MINUTES_PER_DAY) {
+            return null;
+        }
+        int stored = appointmentIdAtMinute[minute];
+        return stored == 0 ? null : Math.abs(stored) - 1;
+    }
+
+    /**
+     * @return true if any minute in [fromMinute, toMinute) is busy
+     */
+    public boolean isBusy(int fromMinute, int toMinute) {
+        return anySet(busy, fromMinute, toMinute);
+    }
+
+    private static void setRange(long[] bits, int fromMinute, int toMinute) {
+        int from = Math.max(fromMinute, 0);
+        int to = Math.min(toMinute, MINUTES_PER_DAY);
+        if (from >= to) {
+            return;
+        }
+        int fromWord = from >>> 6;
+        int toWord = (to - 1) >>> 6;
+        for (int w = fromWord; w <= toWord; w++) {
+            bits[w] |= wordMask(w, from, to);
+        }
+    }
+
+    private static boolean anySet(long[] bits, int fromMinute, int toMinute) {
+        int from = Math.max(fromMinute, 0);
+        int to = Math.min(toMinute, MINUTES_PER_DAY);
+        if (from >= to) {
+            return false;
+        }
+        int fromWord = from >>> 6;
+        int toWord = (to - 1) >>> 6;
+        for (int w = fromWord; w <= toWord; w++) {
+            if ((bits[w] & wordMask(w, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Mask of the bits of word w that fall inside [from, to)
+    private static long wordMask(int w, int from, int to) {
+        int wordStart = w << 6;
+        long mask = -1L;
+        if (from > wordStart) {
+            mask &= -1L << (from - wordStart);
+        }
+        if (to < wordStart + 64) {
+            mask &= -1L >>> (wordStart + 64 - to);
+        }
+        return mask;
+    }
+
+    /**
+     * Minute of day for a LocalTime, truncating seconds
+     */
+    public static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
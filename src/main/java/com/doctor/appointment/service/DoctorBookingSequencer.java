@@ -0,0 +1,285 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.exception.BookingQueueBusyException;
+import com.doctor.appointment.exception.SlotConflictException;
+import com.doctor.appointment.model.ReservationOutcome;
+import com.doctor.appointment.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer lane per doctor for reserve, book and confirm commands.
+ *
+ * When enabled (booking.sequencer.enabled), commands for one doctor are queued and applied by
+ * one consumer at a time. The consumer remembers which slots it has already booked or handed
+ * out holds for, so losing commands are rejected in memory without touching the database.
+ * Winning commands are applied one after another, each in its own transaction. A command whose
+ * caller stopped waiting is withdrawn and never applied. Different doctors run in parallel on
+ * the bounded booking executor.
+ *
+ * When disabled, every command runs directly on the calling thread.
+ */
+@Component
+public class DoctorBookingSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorBookingSequencer.class);
+
+    private static final int RESERVATION_DURATION_MINUTES = 5;
+
+    @Value("${booking.sequencer.enabled:false}")
+    private boolean enabled;
+
+    @Value("${booking.sequencer.max-batch:32}")
+    private int maxBatch;
+
+    @Value("${booking.sequencer.timeout-seconds:10}")
+    private int timeoutSeconds;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    @Qualifier("bookingSequencerExecutor")
+    private TaskExecutor executor;
+
+    private final Map<Integer, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Reserve a slot through the doctor's lane
+     */
+    public ReservationOutcome reserve(int appointmentId, int patientId, Supplier<ReservationOutcome> action) {
+        return submit(new Command<>(Kind.RESERVE, appointmentId, patientId, action));
+    }
+
+    /**
+     * Release a hold through the doctor's lane, so it is ordered with the doctor's other commands
+     */
+    public ReservationOutcome release(int appointmentId, int patientId, Supplier<ReservationOutcome> action) {
+        return submit(new Command<>(Kind.RELEASE, appointmentId, patientId, action));
+    }
+
+    /**
+     * Book a slot (with or without a prior hold) through the doctor's lane
+     */
+    public <T> T book(int appointmentId, int patientId, Supplier<T> action) {
+        return submit(new Command<>(Kind.BOOK, appointmentId, patientId, action));
+    }
+
+    private <T> T submit(Command<T> command) {
+        if (!enabled) {
+            return command.action.get();
+        }
+        Integer doctorId = appointmentRepository.findDoctorIdById(command.appointmentId);
+        if (doctorId == null) {
+            // Unknown slot: let the action report it the usual way
+            return command.action.get();
+        }
+
+        lanes.computeIfAbsent(doctorId, Lane::new).enqueue(command);
+        try {
+            return command.result.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            if (command.abandon()) {
+                throw new BookingQueueBusyException("Booking queue for this doctor is busy. Please try again.");
+            }
+            // Already being applied: the outcome is moments away and must reach the caller
+            return awaitApplied(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Booking process interrupted");
+        }
+    }
+
+    private static <T> T awaitApplied(Command<T> command) {
+        try {
+            return command.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Booking process interrupted");
+        }
+    }
+
+    private enum Kind { RESERVE, RELEASE, BOOK }
+
+    private static final int PENDING = 0;
+    private static final int CLAIMED = 1;
+    private static final int ABANDONED = 2;
+
+    private static final class Command<T> {
+        private final Kind kind;
+        private final int appointmentId;
+        private final int patientId;
+        private final Supplier<T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private T value;
+
+        Command(Kind kind, int appointmentId, int patientId, Supplier<T> action) {
+            this.kind = kind;
+            this.appointmentId = appointmentId;
+            this.patientId = patientId;
+            this.action = action;
+        }
+
+        // Taken by the lane's consumer; fails if the caller already gave up
+        boolean claim() {
+            return state.compareAndSet(PENDING, CLAIMED);
+        }
+
+        // Withdrawn by a caller that timed out; fails if the lane is already applying it
+        boolean abandon() {
+            return state.compareAndSet(PENDING, ABANDONED);
+        }
+
+        @SuppressWarnings("unchecked")
+        void reject(ReservationOutcome outcome) {
+            if (kind == Kind.BOOK) {
+                result.completeExceptionally(new SlotConflictException(outcome == ReservationOutcome.ALREADY_BOOKED
+                        ? "This appointment slot was just booked by another user. Please select a different time slot."
+                        : "This slot is reserved by another user. Please select a different time slot."));
+            } else {
+                result.complete((T) outcome);
+            }
+        }
+    }
+
+    /**
+     * What the lane knows about a slot from commands it has applied itself
+     */
+    private record SlotState(boolean booked, int holder, LocalDateTime holdExpiresAt) {
+
+        boolean heldByOther(int patientId, LocalDateTime now) {
+            return !booked && holder != patientId && holdExpiresAt.isAfter(now);
+        }
+    }
+
+    private final class Lane {
+        private final int doctorId;
+        private final ConcurrentLinkedQueue<Command<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // Only touched by the lane's consumer; cleared whenever the lane goes idle
+        private final Map<Integer, SlotState> slots = new HashMap<>();
+
+        Lane(int doctorId) {
+            this.doctorId = doctorId;
+        }
+
+        void enqueue(Command<?> command) {
+            queue.add(command);
+            scheduleIfNeeded();
+        }
+
+        private void scheduleIfNeeded() {
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drainOnce);
+            }
+        }
+
+        // Applies up to max-batch commands, then yields the thread so other doctors' lanes get their turn
+        private void drainOnce() {
+            try {
+                int applied = 0;
+                Command<?> command;
+                while (applied < maxBatch && (command = queue.poll()) != null) {
+                    if (!command.claim()) {
+                        // The caller timed out and was told to retry
+                        continue;
+                    }
+                    applied++;
+                    LocalDateTime now = LocalDateTime.now();
+                    ReservationOutcome conflict = conflictOf(command, now);
+                    if (conflict != null) {
+                        command.reject(conflict);
+                    } else {
+                        apply(command, now);
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Booking sequencer lane for doctor {} failed", doctorId, e);
+            } finally {
+                if (queue.isEmpty()) {
+                    slots.clear();
+                }
+                scheduled.set(false);
+                scheduleIfNeeded();
+            }
+        }
+
+        private ReservationOutcome conflictOf(Command<?> command, LocalDateTime now) {
+            SlotState state = slots.get(command.appointmentId);
+            if (state == null || command.kind == Kind.RELEASE) {
+                return null;
+            }
+            if (state.booked()) {
+                return ReservationOutcome.ALREADY_BOOKED;
+            }
+            return state.heldByOther(command.patientId, now) ? ReservationOutcome.HELD_BY_OTHER : null;
+        }
+
+        private void record(Command<?> command, LocalDateTime now) {
+            switch (command.kind) {
+                case RESERVE -> slots.put(command.appointmentId,
+                        new SlotState(false, command.patientId, now.plusMinutes(RESERVATION_DURATION_MINUTES)));
+                case BOOK -> slots.put(command.appointmentId, new SlotState(true, command.patientId, now));
+                case RELEASE -> slots.remove(command.appointmentId);
+            }
+        }
+
+        // Each action runs in its own transaction; the lane records its effect only once it has committed
+        private void apply(Command<?> command, LocalDateTime now) {
+            try {
+                run(command);
+            } catch (Exception e) {
+                // The database disagreed with the lane's view; forget the slot
+                slots.remove(command.appointmentId);
+                command.result.completeExceptionally(e);
+                return;
+            }
+            complete(command, now);
+        }
+
+        private static <T> void run(Command<T> command) {
+            command.value = command.action.get();
+        }
+
+        private <T> void complete(Command<T> command, LocalDateTime now) {
+            // A reserve or release that did not go through leaves the lane's view unknown
+            if (command.value instanceof ReservationOutcome outcome
+                    && outcome != ReservationOutcome.RESERVED && outcome != ReservationOutcome.RELEASED) {
+                slots.remove(command.appointmentId);
+            } else {
+                record(command, now);
+            }
+            command.result.complete(command.value);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.event.DoctorDirectoryChangedEvent;
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import com.doctor.appointment.model.Doctor;
+import com.doctor.appointment.model.DTO.DoctorDTO;
+import com.doctor.appointment.repository.DoctorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Immutable in-memory snapshot of the public doctor directory.
+ *
+ * The snapshot holds every doctor's DTO in id order, an id lookup and a specialization to
+ * doctors inverted index, and is read without locks or queries. Changes are recorded by the
+ * commit listeners and applied on the next read: a changed doctor is reloaded alone and a new
+ * snapshot is published copy-on-write with the next version; a specialization change rebuilds
+ * the whole snapshot. The version is served as an ETag so clients can revalidate cheaply.
+ */
+@Component
+public class DoctorDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorDirectory.class);
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private volatile Snapshot snapshot;
+
+    // Doctors and user accounts changed since the snapshot was built
+    private final Set<Integer> changedDoctors = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> changedUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildNeeded = new AtomicBoolean(true);
+
+    // Distinguishes versions of different application runs
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        snapshot();
+    }
+
+    /**
+     * The current snapshot, after applying any pending changes
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && !rebuildNeeded.get() && changedDoctors.isEmpty() && changedUsers.isEmpty()) {
+            return current;
+        }
+        return refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(DoctorScheduleChangedEvent event) {
+        if (event.getKind() == DoctorScheduleChangedEvent.Kind.DOCTOR) {
+            changedDoctors.add(event.getDoctorId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDirectoryChanged(DoctorDirectoryChangedEvent event) {
+        if (event.getUserId() == null) {
+            rebuildNeeded.set(true);
+        } else {
+            changedUsers.add(event.getUserId());
+        }
+    }
+
+    private synchronized Snapshot refresh() {
+        Snapshot current = snapshot;
+        long version = current != null ? current.version() + 1 : 1;
+        if (current == null || rebuildNeeded.getAndSet(false)) {
+            changedDoctors.clear();
+            changedUsers.clear();
+            Map<Integer, DoctorDTO> byId = new TreeMap<>();
+            Map<Integer, Integer> doctorIdByUserId = new HashMap<>();
+            for (Doctor doctor : doctorRepository.findAllForDirectory()) {
+                put(doctor, byId, doctorIdByUserId);
+            }
+            snapshot = Snapshot.of(byId, doctorIdByUserId, epoch, version);
+            logger.info("Doctor directory built with {} doctors (version {})", byId.size(), version);
+            return snapshot;
+        }
+
+        // Drain before reading so a change committed meanwhile is picked up by the next read
+        List<Integer> doctorIds = new ArrayList<>();
+        drain(changedDoctors, doctorIds);
+        List<Integer> userIds = new ArrayList<>();
+        drain(changedUsers, userIds);
+        for (Integer userId : userIds) {
+            Integer doctorId = current.doctorIdByUserId().get(userId);
+            if (doctorId != null) {
+                doctorIds.add(doctorId);
+            }
+        }
+        if (doctorIds.isEmpty()) {
+            return current;
+        }
+
+        Map<Integer, DoctorDTO> byId = new TreeMap<>(current.byId());
+        Map<Integer, Integer> doctorIdByUserId = new HashMap<>(current.doctorIdByUserId());
+        for (Integer doctorId : doctorIds) {
+            byId.remove(doctorId);
+            doctorIdByUserId.values().removeIf(doctorId::equals);
+            Optional<Doctor> doctor = doctorRepository.findForDirectory(doctorId);
+            doctor.ifPresent(d -> put(d, byId, doctorIdByUserId));
+        }
+        snapshot = Snapshot.of(byId, doctorIdByUserId, epoch, version);
+        return snapshot;
+    }
+
+    private static void put(Doctor doctor, Map<Integer, DoctorDTO> byId, Map<Integer, Integer> doctorIdByUserId) {
+        byId.put(doctor.getId(), DoctorServiceImpl.toDTO(doctor));
+        if (doctor.getUser() != null) {
+            doctorIdByUserId.put(doctor.getUser().getId(), doctor.getId());
+        }
+    }
+
+    private static void drain(Set<Integer> from, List<Integer> to) {
+        for (Integer id : from) {
+            if (from.remove(id)) {
+                to.add(id);
+            }
+        }
+    }
+
+    /**
+     * One published state of the directory. Never modified after construction.
+     */
+    public record Snapshot(List<DoctorDTO> doctors,
+                           Map<Integer, DoctorDTO> byId,
+                           Map<String, List<DoctorDTO>> bySpecialization,
+                           Map<Integer, Integer> doctorIdByUserId,
+                           String epoch,
+                           long version) {
+
+        static Snapshot of(Map<Integer, DoctorDTO> byId, Map<Integer, Integer> doctorIdByUserId,
+                           String epoch, long version) {
+            List<DoctorDTO> doctors = List.copyOf(byId.values());
+            Map<String, List<DoctorDTO>> index = new HashMap<>();
+            for (DoctorDTO doctor : doctors) {
+                for (String name : specializationNames(doctor)) {
+                    index.computeIfAbsent(name, key -> new ArrayList<>()).add(doctor);
+                }
+            }
+            Map<String, List<DoctorDTO>> bySpecialization = new HashMap<>();
+            index.forEach((name, list) -> bySpecialization.put(name, List.copyOf(list)));
+            return new Snapshot(doctors, Collections.unmodifiableMap(new TreeMap<>(byId)),
+                    Collections.unmodifiableMap(bySpecialization), Map.copyOf(doctorIdByUserId), epoch, version);
+        }
+
+        // Both the specializations list and the legacy single column count, case-insensitively
+        private static List<String> specializationNames(DoctorDTO doctor) {
+            List<String> names = new ArrayList<>();
+            if (doctor.getSpecializations() != null) {
+                doctor.getSpecializations().forEach(name -> addName(names, name));
+            }
+            addName(names, doctor.getSpecialization());
+            return names;
+        }
+
+        private static void addName(List<String> names, String name) {
+            if (name != null && !name.isBlank()) {
+                String key = name.trim().toLowerCase(Locale.ROOT);
+                if (!names.contains(key)) {
+                    names.add(key);
+                }
+            }
+        }
+
+        public Optional<DoctorDTO> findById(int doctorId) {
+            return Optional.ofNullable(byId.get(doctorId));
+        }
+
+        public List<DoctorDTO> findBySpecialization(String name) {
+            return bySpecialization.getOrDefault(name.trim().toLowerCase(Locale.ROOT), List.of());
+        }
+
+        /**
+         * Quoted entity tag for this version of the directory
+         */
+        public String etag() {
+            return "\"doctors-" + epoch + "-" + version + "\"";
+        }
+    }
+}
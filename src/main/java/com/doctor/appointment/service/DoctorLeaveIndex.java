@@ -0,0 +1,141 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import com.doctor.appointment.model.DoctorLeave;
+import com.doctor.appointment.model.LeaveStatus;
+import com.doctor.appointment.repository.DoctorLeaveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory interval index of each doctor's APPROVED leaves.
+ *
+ * A doctor's leaves are merged into sorted, non-overlapping [start, end] epoch-day
+ * intervals, so point and range checks are a binary search instead of a query.
+ * A doctor's intervals are reloaded after a leave change for that doctor commits.
+ */
+@Component
+public class DoctorLeaveIndex {
+
+    private static final Intervals NO_LEAVES = new Intervals(new long[0], new long[0]);
+
+    @Autowired
+    private DoctorLeaveRepository leaveRepository;
+
+    private final Map<Integer, Intervals> intervals = new ConcurrentHashMap<>();
+
+    // Bumped on every refresh so a load that raced with a change is not cached
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if the doctor has an approved leave covering the date
+     */
+    public boolean isOnLeave(int doctorId, LocalDate date) {
+        return get(doctorId).covering(date.toEpochDay()) >= 0;
+    }
+
+    /**
+     * @return true if any approved leave of the doctor overlaps [startDate, endDate]
+     */
+    public boolean hasLeaveBetween(int doctorId, LocalDate startDate, LocalDate endDate) {
+        Intervals leaves = get(doctorId);
+        // First interval ending on or after startDate; it overlaps if it starts by endDate
+        int index = leaves.firstEndingOnOrAfter(startDate.toEpochDay());
+        return index < leaves.starts.length && leaves.starts[index] <= endDate.toEpochDay();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(DoctorScheduleChangedEvent event) {
+        if (event.getKind() == DoctorScheduleChangedEvent.Kind.LEAVES) {
+            refresh(event.getDoctorId());
+        } else if (event.getKind() == DoctorScheduleChangedEvent.Kind.DOCTOR) {
+            invalidate(event.getDoctorId());
+        }
+    }
+
+    /**
+     * Reload a doctor's approved leaves from the database
+     */
+    public void refresh(int doctorId) {
+        invalidate(doctorId);
+        get(doctorId);
+    }
+
+    public void invalidate(int doctorId) {
+        generation(doctorId).incrementAndGet();
+        intervals.remove(doctorId);
+    }
+
+    private Intervals get(int doctorId) {
+        Intervals cached = intervals.get(doctorId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generation(doctorId).get();
+        Intervals loaded = Intervals.merge(
+                leaveRepository.findByDoctorIdAndStatusOrderByStartDateDesc(doctorId, LeaveStatus.APPROVED));
+        if (generation(doctorId).get() == generation) {
+            intervals.put(doctorId, loaded);
+            // A refresh may have slipped in between the check and the put
+            if (generation(doctorId).get() != generation) {
+                intervals.remove(doctorId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private AtomicLong generation(int doctorId) {
+        return generations.computeIfAbsent(doctorId, id -> new AtomicLong());
+    }
+
+    /**
+     * Sorted, non-overlapping, non-adjacent [starts[i], ends[i]] epoch-day intervals
+     */
+    private record Intervals(long[] starts, long[] ends) {
+
+        static Intervals merge(List<DoctorLeave> leaves) {
+            if (leaves.isEmpty()) {
+                return NO_LEAVES;
+            }
+            List<DoctorLeave> sorted = leaves.stream()
+                    .sorted(Comparator.comparing(DoctorLeave::getStartDate))
+                    .toList();
+            long[] starts = new long[sorted.size()];
+            long[] ends = new long[sorted.size()];
+            int size = 0;
+            for (DoctorLeave leave : sorted) {
+                long start = leave.getStartDate().toEpochDay();
+                long end = leave.getEndDate().toEpochDay();
+                if (size > 0 && start <= ends[size - 1] + 1) {
+                    ends[size - 1] = Math.max(ends[size - 1], end);
+                } else {
+                    starts[size] = start;
+                    ends[size] = end;
+                    size++;
+                }
+            }
+            return new Intervals(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size));
+        }
+
+        // Index of the interval containing the day, or -1
+        int covering(long epochDay) {
+            int index = firstEndingOnOrAfter(epochDay);
+            return index < starts.length && starts[index] <= epochDay ? index : -1;
+        }
+
+        // Ends are sorted too because intervals do not overlap
+        int firstEndingOnOrAfter(long epochDay) {
+            int index = Arrays.binarySearch(ends, epochDay);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
 import com.doctor.appointment.model.Doctor;
 import com.doctor.appointment.model.DoctorLeave;
 import com.doctor.appointment.model.LeaveStatus;
@@ -9,13 +10,13 @@ import com.doctor.appointment.model.DTO.LeaveApprovalDTO;
 import com.doctor.appointment.repository.DoctorLeaveRepository;
 import com.doctor.appointment.repository.DoctorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class DoctorLeaveServiceImpl implements DoctorLeaveService {
@@ -26,6 +27,12 @@ public class DoctorLeaveServiceImpl implements DoctorLeaveService {
     @Autowired
     private DoctorRepository doctorRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DoctorLeaveIndex leaveIndex;
+
     @Override
     @Transactional
     public DoctorLeaveDTO createLeaveRequest(DoctorLeaveCreateDTO createDTO) {
@@ -43,13 +50,7 @@ public class DoctorLeaveServiceImpl implements DoctorLeaveService {
         }
 
         // Check for overlapping approved leaves
-        List<DoctorLeave> overlappingLeaves = leaveRepository.findApprovedLeavesByDoctorAndDateRange(
-                createDTO.getDoctorId(),
-                createDTO.getStartDate(),
-                createDTO.getEndDate()
-        );
-
-        if (!overlappingLeaves.isEmpty()) {
+        if (leaveIndex.hasLeaveBetween(createDTO.getDoctorId(), createDTO.getStartDate(), createDTO.getEndDate())) {
             throw new RuntimeException("There is already an approved leave for this period");
         }
 
@@ -69,16 +70,12 @@ public class DoctorLeaveServiceImpl implements DoctorLeaveService {
 
     @Override
     public List<DoctorLeaveDTO> getLeavesByDoctorId(int doctorId) {
-        return leaveRepository.findByDoctorIdOrderByStartDateDesc(doctorId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return leaveRepository.findDTOsByDoctorId(doctorId);
     }
 
     @Override
     public List<DoctorLeaveDTO> getLeavesByStatus(LeaveStatus status) {
-        return leaveRepository.findByStatusOrderByRequestedAtDesc(status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return leaveRepository.findDTOsByStatus(status);
     }
 
     @Override
@@ -111,6 +108,7 @@ public class DoctorLeaveServiceImpl implements DoctorLeaveService {
         leave.setAdminNotes(approvalDTO.getAdminNotes());
 
         DoctorLeave updatedLeave = leaveRepository.save(leave);
+        publishScheduleChange(updatedLeave);
         return convertToDTO(updatedLeave);
     }
 
@@ -132,35 +130,38 @@ public class DoctorLeaveServiceImpl implements DoctorLeaveService {
 
         leave.setStatus(LeaveStatus.CANCELLED);
         DoctorLeave updatedLeave = leaveRepository.save(leave);
+        publishScheduleChange(updatedLeave);
         return convertToDTO(updatedLeave);
     }
 
     @Override
     public boolean isDoctorOnLeave(int doctorId, LocalDate date) {
-        return leaveRepository.isDoctorOnLeave(doctorId, date);
+        return leaveIndex.isOnLeave(doctorId, date);
     }
 
     @Override
     public List<DoctorLeaveDTO> getApprovedLeavesByDoctorAndDateRange(int doctorId, LocalDate startDate, LocalDate endDate) {
-        return leaveRepository.findApprovedLeavesByDoctorAndDateRange(doctorId, startDate, endDate).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return leaveRepository.findApprovedLeavesByDoctorAndDateRange(doctorId, startDate, endDate);
     }
 
     @Override
     public List<DoctorLeaveDTO> getLeavesByDateRange(LocalDate startDate, LocalDate endDate) {
-        return leaveRepository.findLeavesByDateRange(startDate, endDate).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return leaveRepository.findLeavesByDateRange(startDate, endDate);
     }
 
     @Override
     @Transactional
     public void deleteLeave(Long leaveId) {
-        if (!leaveRepository.existsById(leaveId)) {
-            throw new RuntimeException("Leave not found with id: " + leaveId);
-        }
-        leaveRepository.deleteById(leaveId);
+        DoctorLeave leave = leaveRepository.findById(leaveId)
+                .orElseThrow(() -> new RuntimeException("Leave not found with id: " + leaveId));
+        leaveRepository.delete(leave);
+        publishScheduleChange(leave);
+    }
+
+    // The leave index and slot caches reload this doctor once the change commits
+    private void publishScheduleChange(DoctorLeave leave) {
+        eventPublisher.publishEvent(new DoctorScheduleChangedEvent(leave.getDoctor().getId(),
+                DoctorScheduleChangedEvent.Kind.LEAVES, leave.getStartDate(), leave.getEndDate()));
     }
 
     private DoctorLeaveDTO convertToDTO(DoctorLeave leave) {
@@ -0,0 +1,230 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import com.doctor.appointment.model.DTO.AvailableSlotDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of each doctor's free slot start times over a rolling horizon.
+ *
+ * A doctor's entry is built from the range slot generator on first use and then kept up to
+ * date: a DoctorScheduleChangedEvent recomputes only the days it affects, and when the date
+ * changes the entry drops the past days and generates the new ones at the end of the horizon.
+ * Only events without a date range drop the entry. Searches across many doctors read sorted
+ * arrays instead of recomputing every doctor's calendar.
+ */
+@Component
+public class DoctorNextFreeIndex {
+
+    // Days from today (inclusive) that are kept in the index
+    public static final int HORIZON_DAYS = 28;
+
+    private static final long[] NO_STARTS = new long[0];
+
+    @Autowired
+    private AppointmentSlotGenerationService slotGenerationService;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a build that raced with a change is not cached
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // Builds and updates of one doctor's entry run one at a time so none of them is lost
+    private final Map<Integer, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Free slots of a doctor starting on a day in [from, to]. Days inside the horizon are
+     * served from the index, days after it are computed on the fly and past days are skipped.
+     */
+    public FreeSlots freeSlots(int doctorId, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate horizonEnd = today.plusDays(HORIZON_DAYS - 1);
+        if (from.isBefore(today)) {
+            from = today;
+        }
+        if (to.isBefore(from)) {
+            return new FreeSlots(NO_STARTS, 0, 0, 0);
+        }
+        if (from.isAfter(horizonEnd)) {
+            return build(doctorId, from, to).slice(from, to);
+        }
+
+        Entry entry = entries.get(doctorId);
+        if (entry == null || !entry.from.equals(today)) {
+            entry = current(doctorId, today, horizonEnd);
+        }
+        if (!to.isAfter(horizonEnd)) {
+            return entry.slice(from, to);
+        }
+        // The part after the horizon is not indexed
+        Entry beyond = build(doctorId, horizonEnd.plusDays(1), to);
+        return entry.splice(horizonEnd.plusDays(1), to, beyond).slice(from, to);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(DoctorScheduleChangedEvent event) {
+        if (event.getFromDate() == null || event.getToDate() == null) {
+            invalidate(event.getDoctorId());
+        } else {
+            update(event.getDoctorId(), event.getFromDate(), event.getToDate());
+        }
+    }
+
+    public void invalidate(int doctorId) {
+        generation(doctorId).incrementAndGet();
+        entries.remove(doctorId);
+    }
+
+    /**
+     * Recompute the indexed days of a doctor that fall in [from, to]
+     */
+    public void update(int doctorId, LocalDate from, LocalDate to) {
+        synchronized (lock(doctorId)) {
+            Entry entry = entries.get(doctorId);
+            if (entry == null) {
+                return;
+            }
+            LocalDate updateFrom = from.isAfter(entry.from) ? from : entry.from;
+            LocalDate updateTo = to.isBefore(entry.to) ? to : entry.to;
+            if (updateTo.isBefore(updateFrom)) {
+                return;
+            }
+            long generation = generation(doctorId).get();
+            store(doctorId, generation, entry.splice(updateFrom, updateTo, build(doctorId, updateFrom, updateTo)));
+        }
+    }
+
+    /**
+     * The doctor's entry for the horizon [today, horizonEnd], rolling or building it as needed
+     */
+    private Entry current(int doctorId, LocalDate today, LocalDate horizonEnd) {
+        synchronized (lock(doctorId)) {
+            long generation = generation(doctorId).get();
+            Entry entry = entries.get(doctorId);
+            if (entry != null && entry.from.equals(today)) {
+                return entry;
+            }
+            if (entry != null && entry.from.isBefore(today) && !entry.to.isBefore(today.minusDays(1))) {
+                // The date changed: keep the days still in the horizon and generate the new ones
+                Entry added = build(doctorId, entry.to.plusDays(1), horizonEnd);
+                entry = entry.splice(entry.to.plusDays(1), horizonEnd, added).trim(today, horizonEnd);
+            } else {
+                entry = build(doctorId, today, horizonEnd);
+            }
+            store(doctorId, generation, entry);
+            return entry;
+        }
+    }
+
+    private void store(int doctorId, long generation, Entry entry) {
+        if (generation(doctorId).get() == generation) {
+            entries.put(doctorId, entry);
+            // An invalidation may have slipped in between the check and the put
+            if (generation(doctorId).get() != generation) {
+                entries.remove(doctorId, entry);
+            }
+        }
+    }
+
+    private AtomicLong generation(int doctorId) {
+        return generations.computeIfAbsent(doctorId, id -> new AtomicLong());
+    }
+
+    private Object lock(int doctorId) {
+        return locks.computeIfAbsent(doctorId, id -> new Object());
+    }
+
+    private Entry build(int doctorId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return new Entry(from, to, NO_STARTS, 0);
+        }
+        List<AvailableSlotDTO> slots = slotGenerationService.generateAvailableSlotsForDateRange(doctorId, from, to);
+        long[] starts = new long[slots.size()];
+        int size = 0;
+        int durationMinutes = 0;
+        for (AvailableSlotDTO slot : slots) {
+            if (slot.isAvailable()) {
+                starts[size++] = toEpochMinute(slot.getStartTime());
+                durationMinutes = slot.getDurationMinutes();
+            }
+        }
+        starts = Arrays.copyOf(starts, size);
+        // Working hour blocks are generated in start order per day, but keep the array strictly sorted
+        Arrays.sort(starts);
+        return new Entry(from, to, starts, durationMinutes);
+    }
+
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Immutable sorted free slot starts of the days in [from, to]
+     */
+    private record Entry(LocalDate from, LocalDate to, long[] starts, int durationMinutes) {
+
+        FreeSlots slice(LocalDate sliceFrom, LocalDate sliceTo) {
+            return new FreeSlots(starts, lowerBound(starts, startMinute(sliceFrom)),
+                    lowerBound(starts, startMinute(sliceTo.plusDays(1))), durationMinutes);
+        }
+
+        /**
+         * Copy of this entry with the days in [replaceFrom, replaceTo] taken from the replacement,
+         * extended when the replaced days run past its end
+         */
+        Entry splice(LocalDate replaceFrom, LocalDate replaceTo, Entry replacement) {
+            int head = lowerBound(starts, startMinute(replaceFrom));
+            int tail = lowerBound(starts, startMinute(replaceTo.plusDays(1)));
+            int inserted = replacement.starts.length;
+            long[] spliced = new long[head + inserted + starts.length - tail];
+            System.arraycopy(starts, 0, spliced, 0, head);
+            System.arraycopy(replacement.starts, 0, spliced, head, inserted);
+            System.arraycopy(starts, tail, spliced, head + inserted, starts.length - tail);
+            return new Entry(from, replaceTo.isAfter(to) ? replaceTo : to, spliced,
+                    replacement.durationMinutes != 0 ? replacement.durationMinutes : durationMinutes);
+        }
+
+        /**
+         * Copy of this entry restricted to the days in [trimFrom, trimTo]
+         */
+        Entry trim(LocalDate trimFrom, LocalDate trimTo) {
+            long[] kept = Arrays.copyOfRange(starts,
+                    lowerBound(starts, startMinute(trimFrom)), lowerBound(starts, startMinute(trimTo.plusDays(1))));
+            return new Entry(trimFrom, trimTo, kept, durationMinutes);
+        }
+
+        private static long startMinute(LocalDate date) {
+            return toEpochMinute(date.atStartOfDay());
+        }
+
+        private static int lowerBound(long[] values, long key) {
+            int index = Arrays.binarySearch(values, key);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    /**
+     * Read-only view of a doctor's sorted free slot starts (epoch minutes) in [fromIndex, toIndex)
+     */
+    public record FreeSlots(long[] starts, int fromIndex, int toIndex, int durationMinutes) {
+
+        public boolean isEmpty() {
+            return fromIndex >= toIndex;
+        }
+    }
+}
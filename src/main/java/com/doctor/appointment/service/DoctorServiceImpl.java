@@ -1,5 +1,6 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
 import com.doctor.appointment.model.Doctor;
 import com.doctor.appointment.model.User;
 import com.doctor.appointment.model.DTO.DoctorCreateDTO;
@@ -10,6 +11,7 @@ import com.doctor.appointment.model.Specialization;
 import com.doctor.appointment.repository.SpecializationRepository;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -38,18 +40,21 @@ public class DoctorServiceImpl implements DoctorService {
     @Autowired
     private SpecializationRepository specializationRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DoctorDirectory doctorDirectory;
+
     @Override
     public List<DoctorDTO> findAll() {
-        return doctorRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return doctorDirectory.snapshot().doctors();
     }
 
     @Override
     public DoctorDTO findById(int id) {
-        Doctor doctor = doctorRepository.findById(id)
+        return doctorDirectory.snapshot().findById(id)
                 .orElseThrow(() -> new RuntimeException("Doctor not found: " + id));
-        return toDTO(doctor);
     }
 
     @Override
@@ -101,6 +106,7 @@ public class DoctorServiceImpl implements DoctorService {
         }
 
         Doctor savedDoctor = doctorRepository.save(doctor);
+        eventPublisher.publishEvent(DoctorScheduleChangedEvent.allDates(savedDoctor.getId(), DoctorScheduleChangedEvent.Kind.DOCTOR));
         return toDTO(savedDoctor);
     }
 
@@ -114,6 +120,7 @@ public class DoctorServiceImpl implements DoctorService {
 
         // Delete doctor first to release FK (doctors.user_id)
         doctorRepository.delete(doctor);
+        eventPublisher.publishEvent(DoctorScheduleChangedEvent.allDates(id, DoctorScheduleChangedEvent.Kind.DOCTOR));
 
         // Then delete associated user (if any)
         if (linkedUser != null) {
@@ -185,6 +192,7 @@ public class DoctorServiceImpl implements DoctorService {
         }
 
         Doctor updatedDoctor = doctorRepository.save(existingDoctor);
+        eventPublisher.publishEvent(DoctorScheduleChangedEvent.allDates(doctorId, DoctorScheduleChangedEvent.Kind.DOCTOR));
         return toDTO(updatedDoctor);
     }
 
@@ -222,7 +230,8 @@ public class DoctorServiceImpl implements DoctorService {
         }
     }
 
-    private DoctorDTO toDTO(Doctor doctor) {
+    // Also used by DoctorDirectory to build its snapshot
+    static DoctorDTO toDTO(Doctor doctor) {
         DoctorDTO dto = new DoctorDTO();
         dto.setId(doctor.getId());
         
@@ -0,0 +1,31 @@
+package com.doctor.appointment.service;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for non-repeatable endpoints such as booking with payment
+ */
+public interface IdempotencyService {
+
+    /**
+     * Run the action once per key and replay its response on retries.
+     * Without a key the action simply runs. A retry that arrives while the first request is still
+     * running waits for it instead of running the action again.
+     *
+     * @param scope Name of the endpoint, so the same key can be used on different endpoints
+     * @param idempotencyKey Client-supplied key, or null
+     * @param request Request body, fingerprinted to reject a key reused for a different request
+     * @param action Produces the response the first time
+     * @return The response, serialized to JSON bytes so the replay is byte for byte identical
+     */
+    ResponseEntity<?> execute(String scope, String idempotencyKey, Object request, Supplier<ResponseEntity<?>> action);
+
+    /**
+     * Delete stored responses past their TTL
+     *
+     * @return Number of stored responses deleted
+     */
+    int purgeExpired();
+}
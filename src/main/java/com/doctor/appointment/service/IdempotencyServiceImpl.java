@@ -0,0 +1,224 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.IdempotencyRecord;
+import com.doctor.appointment.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Stores the first successful (2xx) response of each Idempotency-Key in the idempotency_keys
+ * table, with a bounded LRU of recent responses in front of it, and keeps it for a TTL.
+ * Error responses are not stored: most of them are transient (admission required, slot
+ * conflicts, an expired hold, server errors), so a retry with the same key runs the request
+ * again. Concurrent duplicates share one in-flight future.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    // Recently stored responses, least recently used first
+    private final Map<String, StoredResponse> recent = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public ResponseEntity<?> execute(String scope, String idempotencyKey, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "message", "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters",
+                    "error", "INVALID_IDEMPOTENCY_KEY"));
+        }
+        String scopedKey = scope + ":" + currentCaller() + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        StoredResponse stored = cached(scopedKey);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            return replay(await(running), requestHash);
+        }
+
+        try {
+            stored = cached(scopedKey);
+            if (stored == null) {
+                stored = idempotencyRecordRepository.findById(scopedKey)
+                        .filter(record -> record.getExpiresAt().isAfter(LocalDateTime.now()))
+                        .map(StoredResponse::of)
+                        .orElse(null);
+            }
+            if (stored != null) {
+                remember(scopedKey, stored);
+                mine.complete(stored);
+                return replay(stored, requestHash);
+            }
+
+            ResponseEntity<?> response = action.get();
+            stored = new StoredResponse(requestHash, response.getStatusCode().value(), serialize(response.getBody()),
+                    LocalDateTime.now().plusHours(ttlHours));
+            if (response.getStatusCode().is2xxSuccessful()) {
+                persist(scopedKey, stored);
+                remember(scopedKey, stored);
+            }
+            mine.complete(stored);
+            return toResponse(stored, false);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+        return deleted;
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("A request with this Idempotency-Key is still being processed. Please retry shortly.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Request interrupted while waiting for the original request");
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of(
+                    "message", "Idempotency-Key was already used for a different request",
+                    "error", "IDEMPOTENCY_KEY_REUSED"));
+        }
+        return toResponse(stored, true);
+    }
+
+    private ResponseEntity<byte[]> toResponse(StoredResponse stored, boolean replayed) {
+        return ResponseEntity.status(stored.statusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", String.valueOf(replayed))
+                .body(stored.body());
+    }
+
+    private void persist(String scopedKey, StoredResponse stored) {
+        try {
+            int inserted = idempotencyRecordRepository.insertIfAbsent(scopedKey, stored.requestHash(), stored.statusCode(),
+                    new String(stored.body(), StandardCharsets.UTF_8), LocalDateTime.now(), stored.expiresAt());
+            if (inserted == 0) {
+                // Another instance stored the same key first; its response wins on later retries
+                logger.warn("Idempotency key {} was stored concurrently", scopedKey);
+            }
+        } catch (RuntimeException e) {
+            // The action already ran; the in-memory copy still covers retries reaching this instance
+            logger.error("Could not store response for idempotency key {}: {}", scopedKey, e.getMessage());
+        }
+    }
+
+    private StoredResponse cached(String scopedKey) {
+        synchronized (recent) {
+            StoredResponse stored = recent.get(scopedKey);
+            if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+                recent.remove(scopedKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void remember(String scopedKey, StoredResponse stored) {
+        synchronized (recent) {
+            recent.put(scopedKey, stored);
+            if (recent.size() > cacheSize) {
+                recent.remove(recent.keySet().iterator().next());
+            }
+        }
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize response: " + e.getMessage());
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new RuntimeException("Could not fingerprint request: " + e.getMessage());
+        }
+    }
+
+    private static String currentCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private record StoredResponse(String requestHash, int statusCode, byte[] body, LocalDateTime expiresAt) {
+
+        static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                    record.getResponseBody().getBytes(StandardCharsets.UTF_8), record.getExpiresAt());
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.doctor.appointment.model.DTO.BookingResponseDTO;
 import com.doctor.appointment.model.DTO.BookingWithPaymentDTO;
 import com.doctor.appointment.model.DTO.PaymentCreateDTO;
 import com.doctor.appointment.model.DTO.PaymentDTO;
+import com.doctor.appointment.model.DTO.SeriesBookingRequestDTO;
+import com.doctor.appointment.model.DTO.SeriesBookingResponseDTO;
 
 import java.util.List;
 
@@ -24,6 +26,15 @@ public interface PaymentService {
      */
     BookingResponseDTO bookAppointmentWithPayment(BookingWithPaymentDTO bookingWithPaymentDTO);
     
+    /**
+     * Book a recurring series of appointments with one aggregated payment, all or nothing.
+     * Every occurrence must fall on a free slot; the slots are booked with one statement,
+     * history rows are written in one batch and the whole series commits in one transaction.
+     * @param seriesBookingRequestDTO Doctor, patient, recurrence and payment details
+     * @return The series id, the booked appointments and the payment
+     */
+    SeriesBookingResponseDTO bookSeriesWithPayment(SeriesBookingRequestDTO seriesBookingRequestDTO);
+    
     /**
      * Get payment by ID
      * @param paymentId Payment ID
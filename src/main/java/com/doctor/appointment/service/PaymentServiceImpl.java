@@ -1,5 +1,7 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import com.doctor.appointment.exception.SlotConflictException;
 import com.doctor.appointment.model.*;
 import com.doctor.appointment.model.DTO.*;
 import com.doctor.appointment.repository.*;
@@ -7,15 +9,19 @@ import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,9 +33,15 @@ public class PaymentServiceImpl implements PaymentService {
     private final PaymentRepository paymentRepository;
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
-    private final AppointmentStatusHistoryRepository appointmentStatusHistoryRepository;
+    private final StatusHistoryRecorder statusHistoryRecorder;
     private final DoctorLeaveService doctorLeaveService;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppointmentSlotBooker appointmentSlotBooker;
+    private final AppointmentSlotGenerationService appointmentSlotGenerationService;
+    private final AppointmentStatusHistoryJdbcRepository appointmentStatusHistoryJdbcRepository;
+    private final WeeklyScheduleCache weeklyScheduleCache;
+    private final DoctorLeaveIndex doctorLeaveIndex;
     
     @Override
     @Transactional
@@ -75,108 +87,40 @@ public class PaymentServiceImpl implements PaymentService {
     }
     
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional
     public BookingResponseDTO bookAppointmentWithPayment(BookingWithPaymentDTO bookingWithPaymentDTO) {
-        int maxRetries = 3;
-        int retryCount = 0;
-        
-        while (retryCount < maxRetries) {
-            try {
-                return attemptBookingWithPayment(bookingWithPaymentDTO);
-            } catch (OptimisticLockingFailureException e) {
-                retryCount++;
-                logger.warn("Optimistic locking failure on attempt {} for appointment ID: {}. Retrying...", 
-                           retryCount, bookingWithPaymentDTO.getAppointmentId());
-                
-                if (retryCount >= maxRetries) {
-                    throw new RuntimeException("This appointment slot was just booked by another user. Please select a different time slot.");
-                }
-                
-                // Brief pause before retry
-                try {
-                    Thread.sleep(100 * retryCount);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Booking process interrupted");
-                }
-            }
-        }
-        
-        throw new RuntimeException("Failed to book appointment after multiple attempts");
-    }
-    
-    private BookingResponseDTO attemptBookingWithPayment(BookingWithPaymentDTO bookingWithPaymentDTO) {
-        // Find the appointment slot with pessimistic write lock
-        Appointment appointment = appointmentRepository.findById(bookingWithPaymentDTO.getAppointmentId())
-                .orElseThrow(() -> new RuntimeException("Appointment slot not found: " + bookingWithPaymentDTO.getAppointmentId()));
-        
-        // Check if the slot is available
-        if (appointment.getStatus() != AppointmentStatus.AVAILABLE) {
-            throw new RuntimeException("This appointment slot is not available for booking. Current status: " + appointment.getStatus());
-        }
-        
-        // Verify reservation - slot must be reserved by this patient
-        if (appointment.getReservedByPatientId() != null) {
-            if (!appointment.getReservedByPatientId().equals(bookingWithPaymentDTO.getPatientId())) {
-                throw new RuntimeException("This slot is reserved by another user. Please select a different time slot.");
-            }
-            // Check if reservation expired
-            if (appointment.getReservationExpiresAt() != null && 
-                appointment.getReservationExpiresAt().isBefore(LocalDateTime.now())) {
-                throw new RuntimeException("Your reservation has expired. Please reserve the slot again.");
-            }
-        } else {
-            // Slot not reserved - this shouldn't happen if frontend is working correctly
-            logger.warn("Attempting to book slot {} without reservation for patient {}", 
-                       appointment.getId(), bookingWithPaymentDTO.getPatientId());
-        }
-        
-        // Check if doctor is on leave
-        LocalDate appointmentDate = appointment.getAppointmentTime().toLocalDate();
-        if (doctorLeaveService.isDoctorOnLeave(appointment.getDoctor().getId(), appointmentDate)) {
-            throw new RuntimeException("Cannot book appointment. Doctor is on leave for the selected date: " + appointmentDate);
-        }
+        int appointmentId = bookingWithPaymentDTO.getAppointmentId();
         
         // Find the patient
         Patient patient = patientRepository.findById(bookingWithPaymentDTO.getPatientId())
                 .orElseThrow(() -> new RuntimeException("Patient not found with id: " + bookingWithPaymentDTO.getPatientId()));
         
         // Check if payment already exists for this appointment
-        if (paymentRepository.findByAppointmentId(appointment.getId()).isPresent()) {
+        if (paymentRepository.findByAppointmentId(appointmentId).isPresent()) {
             throw new RuntimeException("Payment already exists for this appointment");
         }
         
-        // Update appointment status to BOOKED
-        AppointmentStatus fromStatus = appointment.getStatus();
-        appointment.setPatient(patient);
-        appointment.setStatus(AppointmentStatus.BOOKED);
+        // Book the slot with one conditional update: it must be AVAILABLE and either unreserved,
+        // reserved by this patient, or its reservation expired. A lost race fails immediately.
+        // The history entry is written by the same UPDATE and copied to the history table in the background.
+        String historyLine = statusHistoryRecorder.record(appointmentId, AppointmentStatus.AVAILABLE,
+                AppointmentStatus.BOOKED, "PATIENT:" + bookingWithPaymentDTO.getPatientId(), "Booked appointment with payment");
+        Appointment bookedAppointment = appointmentSlotBooker.book(appointmentId, patient, historyLine);
         
-        // Clear reservation fields since booking is confirmed
-        appointment.setReservedByPatientId(null);
-        appointment.setReservationExpiresAt(null);
-        
-        // Save appointment (this will trigger optimistic locking check)
-        Appointment bookedAppointment = appointmentRepository.save(appointment);
+        // Check if doctor is on leave (rolls the booking back)
+        LocalDate appointmentDate = bookedAppointment.getAppointmentTime().toLocalDate();
+        if (doctorLeaveService.isDoctorOnLeave(bookedAppointment.getDoctor().getId(), appointmentDate)) {
+            throw new RuntimeException("Cannot book appointment. Doctor is on leave for the selected date: " + appointmentDate);
+        }
         
-        // Create appointment status history
-        AppointmentStatusHistory history = new AppointmentStatusHistory();
-        history.setAppointment(bookedAppointment);
-        history.setFromStatus(fromStatus);
-        history.setToStatus(AppointmentStatus.BOOKED);
-        history.setChangedAt(LocalDateTime.now());
-        history.setChangedBy("PATIENT:" + bookingWithPaymentDTO.getPatientId());
-        history.setNote("Booked appointment with payment");
-        appointmentStatusHistoryRepository.save(history);
+        eventPublisher.publishEvent(DoctorScheduleChangedEvent.forDate(bookedAppointment.getDoctor().getId(),
+                DoctorScheduleChangedEvent.Kind.APPOINTMENTS, appointmentDate));
         
         // Create payment record
         Payment payment = new Payment();
         payment.setAppointment(bookedAppointment);
         payment.setPaymentMethod(bookingWithPaymentDTO.getPaymentMethod());
-        // Always use server-side fee from appointment to prevent tampering
-        if (bookedAppointment.getAppointmentFee() == null && bookedAppointment.getDoctor() != null) {
-            bookedAppointment.setAppointmentFee(bookedAppointment.getDoctor().getFee());
-            appointmentRepository.save(bookedAppointment);
-        }
+        // Always use server-side fee from appointment to prevent tampering (filled from the doctor when booking)
         payment.setAmount(bookedAppointment.getAppointmentFee());
         payment.setCardDetails(bookingWithPaymentDTO.getCardDetails());
         payment.setNotes(bookingWithPaymentDTO.getNotes());
@@ -206,6 +150,101 @@ public class PaymentServiceImpl implements PaymentService {
         return response;
     }
     
+    @Override
+    @Transactional
+    public SeriesBookingResponseDTO bookSeriesWithPayment(SeriesBookingRequestDTO request) {
+        int doctorId = request.getDoctorId();
+        
+        Patient patient = patientRepository.findById(request.getPatientId())
+                .orElseThrow(() -> new RuntimeException("Patient not found with id: " + request.getPatientId()));
+        
+        List<LocalDateTime> times = new ArrayList<>();
+        for (int i = 0; i < request.getOccurrences(); i++) {
+            times.add(request.getFirstAppointmentTime().plusWeeks((long) i * request.getIntervalWeeks()));
+        }
+        if (!times.get(0).isAfter(LocalDateTime.now())) {
+            throw new RuntimeException("The first appointment of a series must be in the future");
+        }
+        
+        // Working hours and leaves come from memory; only the slot rows are read from the database
+        CompiledWeeklySchedule schedule = weeklyScheduleCache.get(doctorId);
+        for (LocalDateTime time : times) {
+            if (doctorLeaveIndex.isOnLeave(doctorId, time.toLocalDate())) {
+                throw new RuntimeException("Cannot book series. Doctor is on leave on " + time.toLocalDate());
+            }
+            if (!schedule.isWorkingAt(time.toLocalDate(), time.toLocalTime())) {
+                throw new RuntimeException("Cannot book series. The doctor does not work at " + time);
+            }
+        }
+        
+        Map<LocalDateTime, Appointment> slots = findSeriesSlots(doctorId, times);
+        List<LocalDateTime> missing = times.stream().filter(time -> !slots.containsKey(time)).toList();
+        if (!missing.isEmpty()) {
+            // Days past the materialized horizon get their slots now, in this transaction
+            missing.stream().map(LocalDateTime::toLocalDate).distinct()
+                    .forEach(date -> appointmentSlotGenerationService.materializeSlots(doctorId, date, date));
+            slots.putAll(findSeriesSlots(doctorId, missing));
+            List<LocalDateTime> stillMissing = times.stream().filter(time -> !slots.containsKey(time)).toList();
+            if (!stillMissing.isEmpty()) {
+                throw new SlotConflictException("No free slot for the series at: " + stillMissing);
+            }
+        }
+        
+        // One conditional UPDATE books the whole series or nothing
+        String seriesId = UUID.randomUUID().toString();
+        List<Integer> appointmentIds = times.stream().map(time -> slots.get(time).getId()).toList();
+        List<Appointment> booked = appointmentSlotBooker.bookSeries(appointmentIds, patient, seriesId);
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<AppointmentStatusHistory> history = new ArrayList<>(booked.size());
+        for (Appointment appointment : booked) {
+            history.add(new AppointmentStatusHistory(null, appointment, AppointmentStatus.AVAILABLE,
+                    AppointmentStatus.BOOKED, now, "PATIENT:" + patient.getId(), "Booked in series " + seriesId));
+        }
+        appointmentStatusHistoryJdbcRepository.insertAll(history);
+        booked.stream().map(a -> a.getAppointmentTime().toLocalDate()).distinct()
+                .forEach(date -> eventPublisher.publishEvent(DoctorScheduleChangedEvent.forDate(doctorId,
+                        DoctorScheduleChangedEvent.Kind.APPOINTMENTS, date)));
+        
+        // One payment for the whole series, attached to its first appointment
+        BigDecimal total = booked.stream()
+                .map(Appointment::getAppointmentFee)
+                .filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Payment payment = new Payment();
+        payment.setAppointment(booked.get(0));
+        payment.setPaymentMethod(request.getPaymentMethod());
+        payment.setAmount(total);
+        payment.setCardDetails(request.getCardDetails());
+        payment.setNotes(request.getNotes() != null
+                ? request.getNotes()
+                : "Series " + seriesId + " (" + booked.size() + " appointments)");
+        payment.setTransactionId(generateTransactionId());
+        if (request.getPaymentMethod() == PaymentMethod.CASH) {
+            payment.setPaymentStatus(PaymentStatus.PENDING); // Cash payment pending at clinic
+        } else {
+            payment.setPaymentStatus(PaymentStatus.COMPLETED);
+            payment.setPaidAt(now);
+        }
+        Payment savedPayment = paymentRepository.save(payment);
+        
+        logger.info("Booked series {} of {} appointments for patient ID: {} with doctor ID: {}",
+                seriesId, booked.size(), patient.getId(), doctorId);
+        
+        SeriesBookingResponseDTO response = new SeriesBookingResponseDTO();
+        response.setSeriesId(seriesId);
+        response.setAppointments(booked.stream().map(this::convertAppointmentToDTO).collect(Collectors.toList()));
+        response.setPayment(convertToDTO(savedPayment));
+        response.setMessage("Booked " + booked.size() + " appointments with " +
+                (request.getPaymentMethod() == PaymentMethod.CASH ? "cash payment (pending at clinic)" : "card payment"));
+        return response;
+    }
+    
+    private Map<LocalDateTime, Appointment> findSeriesSlots(int doctorId, List<LocalDateTime> times) {
+        return appointmentRepository.findAvailableByDoctorIdAndTimes(doctorId, times).stream()
+                .collect(Collectors.toMap(Appointment::getAppointmentTime, Function.identity(), (a, b) -> a));
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public PaymentDTO getPaymentById(int paymentId) {
@@ -225,17 +264,13 @@ public class PaymentServiceImpl implements PaymentService {
     @Override
     @Transactional(readOnly = true)
     public List<PaymentDTO> getPaymentsByPatientId(int patientId) {
-        return paymentRepository.findByPatientId(patientId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return paymentRepository.findDTOsByPatientId(patientId);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<PaymentDTO> getPaymentsByDoctorId(int doctorId) {
-        return paymentRepository.findByDoctorId(doctorId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return paymentRepository.findDTOsByDoctorId(doctorId);
     }
     
     @Override
@@ -272,6 +307,7 @@ public class PaymentServiceImpl implements PaymentService {
         dto.setReason(appointment.getReason());
         dto.setStatus(appointment.getStatus());
         dto.setAppointmentFee(appointment.getAppointmentFee());
+        dto.setSeriesId(appointment.getSeriesId());
 
         Doctor doc = appointment.getDoctor();
         if (doc != null) {
@@ -1,5 +1,6 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
 import com.doctor.appointment.model.DTO.UserCreateDTO;
 import com.doctor.appointment.model.Doctor;
 import com.doctor.appointment.model.Patient;
@@ -11,6 +12,7 @@ import com.doctor.appointment.repository.PatientRepository;
 import com.doctor.appointment.repository.ReceptionistRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class RegistrationServiceImpl implements RegistrationService {
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
     private final ReceptionistRepository receptionistRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Register a new user and create the corresponding role-specific entity
@@ -74,6 +77,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         doctor.setAppointmentDurationMinutes(15);
         
         doctorRepository.save(doctor);
+        eventPublisher.publishEvent(DoctorScheduleChangedEvent.allDates(doctor.getId(), DoctorScheduleChangedEvent.Kind.DOCTOR));
         log.info("Doctor created for user: {}", user.getUsername());
     }
     
@@ -0,0 +1,207 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.repository.AppointmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hierarchical timing wheel that releases each slot reservation right when it expires.
+ *
+ * Three levels of 64 buckets cover 1 second, 64 seconds and about 68 minutes per bucket.
+ * Registering or cancelling a hold is O(1): new timers go to a lock-free inbox and only the
+ * wheel thread touches the buckets. Every second the wheel advances one tick, cascades the
+ * coarser level when its bucket comes due and fires a targeted conditional release for each
+ * expired hold, so a lapsed hold frees its slot within about a second.
+ *
+ * The periodic sweep in AppointmentReservationService stays as a safety net.
+ */
+@Component
+public class ReservationExpiryWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExpiryWheel.class);
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 3;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    // Latest hold per appointment; a new hold on the same slot cancels the previous timer
+    private final Map<Integer, Timer> timers = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Timer> inbox = new ConcurrentLinkedQueue<>();
+
+    // Only accessed from the wheel thread
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Timer>[][] buckets = new ArrayDeque[LEVELS][WHEEL_SIZE];
+    private final Clock clock;
+    private final long startMillis;
+    private long currentTick;
+
+    private ScheduledExecutorService wheelThread;
+
+    public ReservationExpiryWheel() {
+        this(Clock.systemDefaultZone());
+    }
+
+    ReservationExpiryWheel(Clock clock) {
+        this.clock = clock;
+        this.startMillis = clock.millis();
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                buckets[level][i] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        wheelThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        wheelThread.scheduleAtFixedRate(this::advance, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheelThread.shutdownNow();
+    }
+
+    /**
+     * Re-register the holds that were live when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int count = 0;
+        for (Object[] row : appointmentRepository.findActiveReservations()) {
+            schedule((Integer) row[0], (Integer) row[1], (LocalDateTime) row[2]);
+            count++;
+        }
+        logger.info("Reservation expiry wheel rebuilt with {} active holds", count);
+    }
+
+    /**
+     * Release the patient's hold on the slot at the given expiry time
+     */
+    public void schedule(int appointmentId, int patientId, LocalDateTime expiresAt) {
+        long deadline = expiresAt.atZone(clock.getZone()).toInstant().toEpochMilli();
+        Timer timer = new Timer(appointmentId, patientId, (deadline - startMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+        Timer previous = timers.put(appointmentId, timer);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        inbox.add(timer);
+    }
+
+    /**
+     * Forget the hold on a slot (it was booked or released explicitly)
+     */
+    public void cancel(int appointmentId) {
+        Timer timer = timers.remove(appointmentId);
+        if (timer != null) {
+            timer.cancelled = true;
+        }
+    }
+
+    // Runs on the wheel thread; catches up if a tick was delayed
+    void advance() {
+        try {
+            long targetTick = (clock.millis() - startMillis) / TICK_MILLIS;
+            while (currentTick < targetTick) {
+                currentTick++;
+                drainInbox();
+                cascade();
+                ArrayDeque<Timer> due = buckets[0][(int) (currentTick & WHEEL_MASK)];
+                for (int i = due.size(); i > 0; i--) {
+                    place(due.poll());
+                }
+            }
+            drainInbox();
+        } catch (Exception e) {
+            logger.error("Reservation expiry wheel tick failed", e);
+        }
+    }
+
+    private void drainInbox() {
+        Timer timer;
+        while ((timer = inbox.poll()) != null) {
+            place(timer);
+        }
+    }
+
+    // When a lower wheel wraps around, move the next coarser bucket down a level
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            ArrayDeque<Timer> bucket = buckets[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+            for (int i = bucket.size(); i > 0; i--) {
+                place(bucket.poll());
+            }
+        }
+    }
+
+    private void place(Timer timer) {
+        if (timer.cancelled) {
+            return;
+        }
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            fire(timer);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (WHEEL_BITS * (level + 1)) || level == LEVELS - 1) {
+                // Deadlines beyond the top level wait in its farthest bucket and are re-placed when it cascades
+                long tick = Math.min(timer.deadlineTick, currentTick + (1L << (WHEEL_BITS * LEVELS)) - 1);
+                buckets[level][(int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timer);
+                return;
+            }
+        }
+    }
+
+    private void fire(Timer timer) {
+        timers.remove(timer.appointmentId, timer);
+        try {
+            appointmentRepository.releaseReservationIfExpired(timer.appointmentId, timer.patientId, LocalDateTime.now(clock));
+        } catch (Exception e) {
+            // The periodic sweep releases it instead
+            logger.warn("Could not release expired reservation of appointment {}: {}", timer.appointmentId, e.getMessage());
+        }
+    }
+
+    private static final class Timer {
+        private final int appointmentId;
+        private final int patientId;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        Timer(int appointmentId, int patientId, long deadlineTick) {
+            this.appointmentId = appointmentId;
+            this.patientId = patientId;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.DTO.SlotBulkGenerationJobDTO;
+import com.doctor.appointment.model.DTO.SlotBulkGenerationRequestDTO;
+
+/**
+ * Background materialization of AVAILABLE slots for many doctors over many weeks
+ */
+public interface SlotBulkGenerationService {
+
+    /**
+     * Start a bulk generation job; doctors are processed in parallel in the background
+     *
+     * @param request Doctors (all when empty) and date range to materialize
+     * @return The accepted job with its initial progress
+     */
+    SlotBulkGenerationJobDTO startJob(SlotBulkGenerationRequestDTO request);
+
+    /**
+     * Get the progress of a bulk generation job
+     *
+     * @param jobId The job ID returned by startJob
+     * @return Current job progress
+     */
+    SlotBulkGenerationJobDTO getJob(String jobId);
+
+    /**
+     * Extend every doctor's materialized slots so they reach the given number of weeks ahead.
+     * Only days after each doctor's last materialized day are generated.
+     *
+     * @param horizonWeeks How many weeks from today should be bookable
+     * @return Number of slots created
+     */
+    long extendRollingHorizon(int horizonWeeks);
+}
@@ -0,0 +1,259 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.exception.ResourceNotFoundException;
+import com.doctor.appointment.model.Doctor;
+import com.doctor.appointment.model.DTO.SlotBulkGenerationJobDTO;
+import com.doctor.appointment.model.DTO.SlotBulkGenerationRequestDTO;
+import com.doctor.appointment.model.SlotGenerationJobStatus;
+import com.doctor.appointment.repository.AppointmentRepository;
+import com.doctor.appointment.repository.DoctorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+public class SlotBulkGenerationServiceImpl implements SlotBulkGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotBulkGenerationServiceImpl.class);
+
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_RECORDED_ERRORS = 50;
+
+    // Finished jobs are kept this long for status polling
+    private static final long FINISHED_JOB_RETENTION_HOURS = 24;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentSlotGenerationService slotGenerationService;
+
+    @Autowired
+    private WeeklyScheduleCache weeklyScheduleCache;
+
+    @Autowired
+    @Qualifier("slotGenerationExecutor")
+    private TaskExecutor slotGenerationExecutor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // Guards against a slow horizon run overlapping with the next scheduled one
+    private final AtomicBoolean horizonRunInProgress = new AtomicBoolean();
+
+    @Override
+    public SlotBulkGenerationJobDTO startJob(SlotBulkGenerationRequestDTO request) {
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        if (ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate()) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+
+        List<Integer> doctorIds = request.getDoctorIds() == null || request.getDoctorIds().isEmpty()
+                ? doctorRepository.findAll().stream().map(Doctor::getId).collect(Collectors.toList())
+                : request.getDoctorIds().stream().distinct().collect(Collectors.toList());
+
+        evictFinishedJobs();
+        Job job = new Job(UUID.randomUUID().toString(), request.getStartDate(), request.getEndDate(), doctorIds.size());
+        jobs.put(job.id, job);
+        logger.info("Bulk slot generation job {} accepted for {} doctors from {} to {}",
+                job.id, doctorIds.size(), job.startDate, job.endDate);
+
+        if (doctorIds.isEmpty()) {
+            job.finish();
+        }
+        for (Integer doctorId : doctorIds) {
+            slotGenerationExecutor.execute(() -> processDoctor(job, doctorId));
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public SlotBulkGenerationJobDTO getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Slot generation job", "id", jobId);
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public long extendRollingHorizon(int horizonWeeks) {
+        if (!horizonRunInProgress.compareAndSet(false, true)) {
+            logger.warn("Rolling horizon slot generation is still running, skipping this run");
+            return 0;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate horizonEnd = today.plusWeeks(horizonWeeks).minusDays(1);
+
+            // A day counts as materialized only while it still has AVAILABLE slots; booked, cancelled
+            // or ad-hoc rows say nothing about whether the day's slots were generated. Days that were
+            // generated and then fully booked come back as missing, but the insert skips occupied
+            // and already existing times, so running them again creates nothing.
+            Map<Integer, Set<LocalDate>> availableDays = new HashMap<>();
+            for (Object[] row : appointmentRepository.findAvailableDaysPerDoctor(
+                    today.atStartOfDay(), horizonEnd.plusDays(1).atStartOfDay())) {
+                LocalDate day = row[1] instanceof Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) row[1];
+                availableDays.computeIfAbsent(((Number) row[0]).intValue(), id -> new HashSet<>()).add(day);
+            }
+
+            Map<Integer, List<LocalDate[]>> missingRuns = new HashMap<>();
+            for (Doctor doctor : doctorRepository.findAll()) {
+                List<LocalDate[]> runs = missingWorkingDayRuns(doctor.getId(),
+                        availableDays.getOrDefault(doctor.getId(), Set.of()), today, horizonEnd);
+                if (!runs.isEmpty()) {
+                    missingRuns.put(doctor.getId(), runs);
+                }
+            }
+            List<Integer> doctorIds = new ArrayList<>(missingRuns.keySet());
+            if (doctorIds.isEmpty()) {
+                return 0;
+            }
+
+            // Split the doctors into one partition per executor thread; each partition runs sequentially
+            int partitions = Math.min(doctorIds.size(), Runtime.getRuntime().availableProcessors());
+            AtomicLong created = new AtomicLong();
+            List<CompletableFuture<Void>> futures = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int partition = p;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = partition; i < doctorIds.size(); i += partitions) {
+                        int doctorId = doctorIds.get(i);
+                        try {
+                            for (LocalDate[] run : missingRuns.get(doctorId)) {
+                                created.addAndGet(slotGenerationService.materializeSlots(doctorId, run[0], run[1]));
+                            }
+                        } catch (Exception e) {
+                            logger.error("Rolling horizon slot generation failed for doctor {}", doctorId, e);
+                        }
+                    }
+                }, slotGenerationExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            logger.info("Rolling horizon slot generation up to {}: {} doctors extended, {} slots created",
+                    horizonEnd, doctorIds.size(), created.get());
+            return created.get();
+        } finally {
+            horizonRunInProgress.set(false);
+        }
+    }
+
+    /**
+     * Contiguous runs [first, last] of the doctor's working days in [from, to] without AVAILABLE slots
+     */
+    private List<LocalDate[]> missingWorkingDayRuns(int doctorId, Set<LocalDate> availableDays, LocalDate from, LocalDate to) {
+        CompiledWeeklySchedule schedule = weeklyScheduleCache.get(doctorId);
+        List<LocalDate[]> runs = new ArrayList<>();
+        LocalDate runStart = null;
+        LocalDate runEnd = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (schedule.intervalsOn(date).length == 0 || availableDays.contains(date)) {
+                continue;
+            }
+            if (runEnd != null && runEnd.plusDays(1).equals(date)) {
+                runEnd = date;
+                continue;
+            }
+            if (runStart != null) {
+                runs.add(new LocalDate[] {runStart, runEnd});
+            }
+            runStart = date;
+            runEnd = date;
+        }
+        if (runStart != null) {
+            runs.add(new LocalDate[] {runStart, runEnd});
+        }
+        return runs;
+    }
+
+    private void processDoctor(Job job, int doctorId) {
+        job.status = SlotGenerationJobStatus.RUNNING;
+        try {
+            int created = slotGenerationService.materializeSlots(doctorId, job.startDate, job.endDate);
+            job.slotsCreated.addAndGet(created);
+        } catch (Exception e) {
+            logger.error("Bulk slot generation job {} failed for doctor {}", job.id, doctorId, e);
+            job.failedDoctors.incrementAndGet();
+            if (job.errors.size() < MAX_RECORDED_ERRORS) {
+                job.errors.add("Doctor " + doctorId + ": " + e.getMessage());
+            }
+        } finally {
+            if (job.processedDoctors.incrementAndGet() == job.totalDoctors) {
+                job.finish();
+                logger.info("Bulk slot generation job {} finished: {} slots created, {} doctors failed",
+                        job.id, job.slotsCreated.get(), job.failedDoctors.get());
+            }
+        }
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(FINISHED_JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    /**
+     * Mutable progress of one job, updated concurrently by the doctor tasks
+     */
+    private static final class Job {
+        private final String id;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final int totalDoctors;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicInteger processedDoctors = new AtomicInteger();
+        private final AtomicInteger failedDoctors = new AtomicInteger();
+        private final AtomicLong slotsCreated = new AtomicLong();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile SlotGenerationJobStatus status = SlotGenerationJobStatus.QUEUED;
+        private volatile LocalDateTime finishedAt;
+
+        Job(String id, LocalDate startDate, LocalDate endDate, int totalDoctors) {
+            this.id = id;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.totalDoctors = totalDoctors;
+        }
+
+        void finish() {
+            status = failedDoctors.get() > 0 ? SlotGenerationJobStatus.FAILED : SlotGenerationJobStatus.COMPLETED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        SlotBulkGenerationJobDTO toDTO() {
+            List<String> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            return new SlotBulkGenerationJobDTO(id, status, startDate, endDate, totalDoctors,
+                    processedDoctors.get(), failedDoctors.get(), slotsCreated.get(),
+                    submittedAt, finishedAt, errorsCopy);
+        }
+    }
+}
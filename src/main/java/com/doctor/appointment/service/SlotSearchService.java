@@ -0,0 +1,30 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.DTO.SlotSearchResultDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Search for free appointment slots across doctors
+ */
+public interface SlotSearchService {
+
+    /**
+     * Find the earliest free slots across all doctors with the given specialization
+     *
+     * @param specialization Specialization name (case-insensitive)
+     * @param startDate First day of the search window
+     * @param endDate Last day of the search window
+     * @param maxFee Optional upper bound on the doctor's consultation fee
+     * @param earliestTime Optional earliest slot start time of day
+     * @param latestTime Optional latest slot start time of day
+     * @param limit Maximum number of slots to return
+     * @return Slots ordered by start time, earliest first
+     */
+    List<SlotSearchResultDTO> findEarliestSlots(String specialization, LocalDate startDate, LocalDate endDate,
+                                                BigDecimal maxFee, LocalTime earliestTime, LocalTime latestTime,
+                                                int limit);
+}
@@ -0,0 +1,126 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.DTO.SlotSearchResultDTO;
+import com.doctor.appointment.model.Doctor;
+import com.doctor.appointment.repository.DoctorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+@Service
+public class SlotSearchServiceImpl implements SlotSearchService {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_WINDOW_DAYS = 90;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private DoctorNextFreeIndex nextFreeIndex;
+
+    @Override
+    public List<SlotSearchResultDTO> findEarliestSlots(String specialization, LocalDate startDate, LocalDate endDate,
+                                                       BigDecimal maxFee, LocalTime earliestTime, LocalTime latestTime,
+                                                       int limit) {
+        if (specialization == null || specialization.isBlank()) {
+            throw new IllegalArgumentException("Specialization is required");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Search window cannot exceed " + MAX_WINDOW_DAYS + " days");
+        }
+        int maxResults = Math.min(Math.max(limit, 1), MAX_LIMIT);
+
+        long nowMinute = DoctorNextFreeIndex.toEpochMinute(LocalDateTime.now());
+        int fromMinuteOfDay = earliestTime != null ? DayAvailability.minuteOfDay(earliestTime) : 0;
+        int toMinuteOfDay = latestTime != null ? DayAvailability.minuteOfDay(latestTime) : DayAvailability.MINUTES_PER_DAY - 1;
+
+        // One cursor per matching doctor, merged by next start time
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparingLong(Cursor::current));
+        for (Doctor doctor : doctorRepository.findBySpecializationName(specialization.trim())) {
+            if (maxFee != null && (doctor.getFee() == null || doctor.getFee().compareTo(maxFee) > 0)) {
+                continue;
+            }
+            DoctorNextFreeIndex.FreeSlots slots = nextFreeIndex.freeSlots(doctor.getId(), startDate, endDate);
+            Cursor cursor = new Cursor(doctor, slots, nowMinute, fromMinuteOfDay, toMinuteOfDay);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        List<SlotSearchResultDTO> results = new ArrayList<>(maxResults);
+        while (results.size() < maxResults && !queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            results.add(cursor.toResult());
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Walks one doctor's sorted free starts, skipping slots in the past or outside the time-of-day window
+     */
+    private static final class Cursor {
+        private final Doctor doctor;
+        private final DoctorNextFreeIndex.FreeSlots slots;
+        private final long notBeforeMinute;
+        private final int fromMinuteOfDay;
+        private final int toMinuteOfDay;
+        private int position;
+        private long current;
+
+        Cursor(Doctor doctor, DoctorNextFreeIndex.FreeSlots slots, long notBeforeMinute,
+               int fromMinuteOfDay, int toMinuteOfDay) {
+            this.doctor = doctor;
+            this.slots = slots;
+            this.notBeforeMinute = notBeforeMinute;
+            this.fromMinuteOfDay = fromMinuteOfDay;
+            this.toMinuteOfDay = toMinuteOfDay;
+            this.position = slots.fromIndex();
+        }
+
+        long current() {
+            return current;
+        }
+
+        boolean advance() {
+            long[] starts = slots.starts();
+            while (position < slots.toIndex()) {
+                long start = starts[position++];
+                int minuteOfDay = (int) Math.floorMod(start, (long) DayAvailability.MINUTES_PER_DAY);
+                if (start >= notBeforeMinute && minuteOfDay >= fromMinuteOfDay && minuteOfDay <= toMinuteOfDay) {
+                    current = start;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        SlotSearchResultDTO toResult() {
+            LocalDateTime start = DoctorNextFreeIndex.fromEpochMinute(current);
+            SlotSearchResultDTO dto = new SlotSearchResultDTO();
+            dto.setDoctorId(doctor.getId());
+            dto.setDoctorName(doctor.getUser() != null ? doctor.getUser().getName() : "Unknown");
+            dto.setSpecialization(doctor.getSpecialization());
+            dto.setFee(doctor.getFee());
+            dto.setStartTime(start);
+            dto.setEndTime(start.plusMinutes(slots.durationMinutes()));
+            dto.setDurationMinutes(slots.durationMinutes());
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.event.DoctorDirectoryChangedEvent;
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for each doctor's slots, per day.
+ *
+ * Every DoctorScheduleChangedEvent takes the next value of one global sequence and stores it on
+ * the days it affects (or on the whole doctor when it has no bounded range). The version of a day
+ * is the highest value stored for it, so the version of a date range is the highest over its days
+ * and changes whenever any of them changes. Slot endpoints send it as a strong ETag and answer
+ * 304 Not Modified before computing anything when the client already has the current version.
+ *
+ * User and specialization changes bump every doctor's version, since slot responses carry names.
+ */
+@Component
+public class SlotVersionRegistry {
+
+    // Longer ranges bump the whole doctor instead of every day
+    private static final int MAX_DAYS_PER_EVENT = 62;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Floor for every doctor, raised by directory changes
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    private final Map<Integer, DoctorVersions> doctors = new ConcurrentHashMap<>();
+
+    // Distinguishes versions of different application runs
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Runs after completion rather than after commit so the caches the slot computation reads
+     * (WeeklyScheduleCache, DoctorLeaveIndex, ...) are already invalidated when the new version
+     * becomes visible; otherwise a request in between could tag stale slots with it.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onScheduleChanged(DoctorScheduleChangedEvent event) {
+        long version = sequence.incrementAndGet();
+        DoctorVersions versions = doctors.computeIfAbsent(event.getDoctorId(), id -> new DoctorVersions());
+        LocalDate from = event.getFromDate();
+        LocalDate to = event.getToDate();
+        if (from == null || to == null || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS_PER_EVENT) {
+            versions.floor.accumulateAndGet(version, Math::max);
+        } else {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                versions.days.merge(date, version, Math::max);
+            }
+        }
+        versions.prune(LocalDate.now());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onDirectoryChanged(DoctorDirectoryChangedEvent event) {
+        globalVersion.accumulateAndGet(sequence.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Current version of a doctor's slots on the days in [from, to]
+     */
+    public long version(int doctorId, LocalDate from, LocalDate to) {
+        long version = globalVersion.get();
+        DoctorVersions versions = doctors.get(doctorId);
+        if (versions == null) {
+            return version;
+        }
+        version = Math.max(version, versions.floor.get());
+        if (to.isBefore(from)) {
+            return version;
+        }
+        for (long day : versions.days.subMap(from, true, to, true).values()) {
+            version = Math.max(version, day);
+        }
+        return version;
+    }
+
+    /**
+     * Quoted strong entity tag for a doctor's slots on the days in [from, to]
+     */
+    public String etag(int doctorId, LocalDate from, LocalDate to) {
+        return "\"slots-" + epoch + "-" + doctorId + "-" + version(doctorId, from, to) + "\"";
+    }
+
+    public String etag(int doctorId, LocalDate date) {
+        return etag(doctorId, date, date);
+    }
+
+    private static final class DoctorVersions {
+
+        final AtomicLong floor = new AtomicLong();
+
+        final ConcurrentSkipListMap<LocalDate, Long> days = new ConcurrentSkipListMap<>();
+
+        /**
+         * Drop the counters of past days, folding them into the floor so no day's version goes back
+         */
+        void prune(LocalDate today) {
+            NavigableMap<LocalDate, Long> past = days.headMap(today, false);
+            if (past.isEmpty()) {
+                return;
+            }
+            // Raise the floor first so a concurrent read never sees a lower version
+            Map<LocalDate, Long> removed = Map.copyOf(past);
+            floor.accumulateAndGet(removed.values().stream().mapToLong(Long::longValue).max().orElse(0), Math::max);
+            removed.forEach(days::remove);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorDirectoryChangedEvent;
 import com.doctor.appointment.model.DTO.SpecializationCreateDTO;
 import com.doctor.appointment.model.DTO.SpecializationDTO;
 import com.doctor.appointment.model.Specialization;
 import com.doctor.appointment.repository.SpecializationRepository;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,10 +18,13 @@ public class SpecializationServiceImpl implements SpecializationService {
 
     private final SpecializationRepository specializationRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public SpecializationServiceImpl(SpecializationRepository specializationRepository, ModelMapper modelMapper) {
+    public SpecializationServiceImpl(SpecializationRepository specializationRepository, ModelMapper modelMapper,
+                                     ApplicationEventPublisher eventPublisher) {
         this.specializationRepository = specializationRepository;
         this.modelMapper = modelMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -62,6 +67,8 @@ public class SpecializationServiceImpl implements SpecializationService {
         s.setName(dto.getName());
         s.setDescription(dto.getDescription());
         s = specializationRepository.save(s);
+        // Renaming changes every doctor listed under the specialization
+        eventPublisher.publishEvent(DoctorDirectoryChangedEvent.everything());
         return modelMapper.map(s, SpecializationDTO.class);
     }
 
@@ -72,5 +79,6 @@ public class SpecializationServiceImpl implements SpecializationService {
             throw new RuntimeException("Specialization not found: " + id);
         }
         specializationRepository.deleteById(id);
+        eventPublisher.publishEvent(DoctorDirectoryChangedEvent.everything());
     }
 }
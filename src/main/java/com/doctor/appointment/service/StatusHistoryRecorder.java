@@ -0,0 +1,273 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.Appointment;
+import com.doctor.appointment.model.AppointmentStatus;
+import com.doctor.appointment.model.AppointmentStatusHistory;
+import com.doctor.appointment.repository.AppointmentRepository;
+import com.doctor.appointment.repository.AppointmentStatusHistoryJdbcRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind recorder for appointment status history.
+ *
+ * A transition does not insert its history row on the request path. Instead the entry is
+ * appended, as one JSON line, to the appointment's pending_history column by the same UPDATE
+ * that changes the status, so it commits or rolls back with the transition (a transactional
+ * outbox that costs no extra statement). After commit the entry goes to a bounded in-memory
+ * queue; a single flusher thread copies queued entries to appointment_status_history in JDBC
+ * batches, when the queue reaches the batch size or every flush interval.
+ *
+ * Each flush removes the entries from the outbox and inserts them in one transaction, and only
+ * inserts the entries it actually removed, so an entry is recorded exactly once even if it was
+ * queued twice. Entries that never reached the queue (a full queue, a failed flush, a crash) stay
+ * in the outbox and are picked up by the recovery sweep.
+ */
+@Component
+public class StatusHistoryRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusHistoryRecorder.class);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentStatusHistoryJdbcRepository appointmentStatusHistoryJdbcRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${history.recorder.batch-size:200}")
+    private int batchSize;
+
+    @Value("${history.recorder.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${history.recorder.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${history.recorder.sweep-interval-seconds:60}")
+    private long sweepIntervalSeconds;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private BlockingQueue<Queued> queue;
+
+    private ScheduledExecutorService flusherThread;
+
+    // Set when entries may be sitting in the outbox without being queued
+    private final AtomicBoolean sweepNeeded = new AtomicBoolean(true);
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    public StatusHistoryRecorder(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        flusherThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-history-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusherThread.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        flusherThread.scheduleWithFixedDelay(this::sweepIfNeeded, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusherThread.shutdown();
+        try {
+            flusherThread.awaitTermination(5, TimeUnit.SECONDS);
+            // Whatever is still queued is also in the outbox, so a failure here loses nothing
+            flushAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.warn("Final status history flush failed, entries stay in the outbox: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Copy the entries left in the outbox by the previous run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        flusherThread.execute(this::sweepIfNeeded);
+    }
+
+    /**
+     * Record a transition. The returned line must be appended to the appointment's pending_history
+     * by the statement that performs the transition; the entry is queued once that transaction commits.
+     */
+    public String record(int appointmentId, AppointmentStatus fromStatus, AppointmentStatus toStatus,
+                         String changedBy, String note) {
+        PendingHistory entry = new PendingHistory(UUID.randomUUID().toString(), fromStatus, toStatus,
+                LocalDateTime.now(), changedBy, note);
+        String line = toLine(entry);
+        Queued queued = new Queued(appointmentId, line, entry);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(queued);
+                }
+            });
+        } else {
+            enqueue(queued);
+        }
+        return line;
+    }
+
+    /**
+     * Parse the entries of a pending_history value that have not been flushed yet
+     */
+    public List<PendingHistory> pendingEntries(String pendingHistory) {
+        List<PendingHistory> entries = new ArrayList<>();
+        if (pendingHistory == null || pendingHistory.isEmpty()) {
+            return entries;
+        }
+        for (String line : pendingHistory.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                entries.add(objectMapper.readValue(line, PendingHistory.class));
+            } catch (JsonProcessingException e) {
+                logger.warn("Skipping unreadable pending status history entry: {}", e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    private void enqueue(Queued queued) {
+        if (!queue.offer(queued)) {
+            // The entry is safe in the outbox; the sweep will copy it
+            sweepNeeded.set(true);
+            return;
+        }
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusherThread.execute(this::flushAll);
+        }
+    }
+
+    private void flushAll() {
+        flushRequested.set(false);
+        try {
+            List<Queued> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                flush(batch);
+                batch.clear();
+            }
+        } catch (RuntimeException e) {
+            sweepNeeded.set(true);
+            logger.error("Status history flush failed, entries stay in the outbox: {}", e.getMessage());
+        }
+    }
+
+    private void flush(List<Queued> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean[] claimed = appointmentStatusHistoryJdbcRepository.removeFromOutbox(
+                    batch.stream().map(Queued::appointmentId).toList(),
+                    batch.stream().map(Queued::line).toList());
+            List<AppointmentStatusHistory> rows = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (claimed[i]) {
+                    rows.add(batch.get(i).toHistory());
+                }
+            }
+            if (!rows.isEmpty()) {
+                appointmentStatusHistoryJdbcRepository.insertAll(rows);
+            }
+        });
+    }
+
+    private void sweepIfNeeded() {
+        if (!sweepNeeded.getAndSet(false)) {
+            return;
+        }
+        try {
+            int count = 0;
+            for (Object[] row : appointmentRepository.findPendingHistory(queueCapacity)) {
+                int appointmentId = ((Number) row[0]).intValue();
+                String pendingHistory = (String) row[1];
+                for (String line : pendingHistory.split("\n")) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        enqueue(new Queued(appointmentId, line + "\n", objectMapper.readValue(line, PendingHistory.class)));
+                        count++;
+                    } catch (JsonProcessingException e) {
+                        logger.warn("Skipping unreadable pending status history entry of appointment {}: {}",
+                                appointmentId, e.getMessage());
+                    }
+                }
+            }
+            if (count > 0) {
+                logger.info("Recovered {} pending status history entries from the outbox", count);
+            }
+            flushAll();
+        } catch (RuntimeException e) {
+            sweepNeeded.set(true);
+            logger.error("Status history outbox sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private String toLine(PendingHistory entry) {
+        try {
+            return objectMapper.writeValueAsString(entry) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize status history entry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A status history entry waiting in an appointment's outbox
+     */
+    public record PendingHistory(String id, AppointmentStatus fromStatus, AppointmentStatus toStatus,
+                                 LocalDateTime changedAt, String changedBy, String note) {
+    }
+
+    private record Queued(int appointmentId, String line, PendingHistory entry) {
+
+        AppointmentStatusHistory toHistory() {
+            Appointment appointment = new Appointment();
+            appointment.setId(appointmentId);
+            AppointmentStatusHistory history = new AppointmentStatusHistory();
+            history.setAppointment(appointment);
+            history.setFromStatus(entry.fromStatus());
+            history.setToStatus(entry.toStatus());
+            history.setChangedAt(entry.changedAt());
+            history.setChangedBy(entry.changedBy());
+            history.setNote(entry.note());
+            return history;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorDirectoryChangedEvent;
 import com.doctor.appointment.model.DTO.UserCreateDTO;
 import com.doctor.appointment.model.DTO.UserDTO;
 import com.doctor.appointment.model.Role;
 import com.doctor.appointment.model.User;
 import com.doctor.appointment.repository.UserRepository;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -25,11 +27,14 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final ModelMapper modelMapper;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserServiceImpl(UserRepository userRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.modelMapper = modelMapper;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -65,6 +70,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void deleteById(int theId) {
         userRepository.deleteById(theId);
+        eventPublisher.publishEvent(DoctorDirectoryChangedEvent.forUser(theId));
     }
 
     @Override
@@ -84,6 +90,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(existingUser);
+        eventPublisher.publishEvent(DoctorDirectoryChangedEvent.forUser(userId));
 
         return modelMapper.map(updatedUser, UserDTO.class);
     }
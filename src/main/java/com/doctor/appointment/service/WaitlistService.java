@@ -0,0 +1,46 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.model.DTO.WaitlistEntryDTO;
+import com.doctor.appointment.model.DTO.WaitlistRequestDTO;
+
+import java.util.List;
+
+/**
+ * Waitlist for fully booked doctors: freed slots are offered to waiting patients
+ * as time-limited reservations instead of being found by polling
+ */
+public interface WaitlistService {
+
+    /**
+     * Register a patient's interest in a doctor's slots within a date range and daily time window
+     *
+     * @param request Doctor, patient, date range and time window
+     * @return The new waitlist entry
+     */
+    WaitlistEntryDTO join(WaitlistRequestDTO request);
+
+    /**
+     * Withdraw a waitlist entry; a slot currently offered to it goes to the next patient
+     *
+     * @param entryId The waitlist entry
+     * @param patientId The patient who owns the entry
+     */
+    void cancel(long entryId, int patientId);
+
+    /**
+     * Get a patient's waitlist entries, newest first, including any current offer
+     *
+     * @param patientId The patient
+     * @return The patient's entries
+     */
+    List<WaitlistEntryDTO> getByPatient(int patientId);
+
+    /**
+     * Settle offers whose hold has lapsed: booked ones are fulfilled, the others expire
+     * and their slot is offered to the next matching patient. Entries whose date range
+     * has passed are expired too.
+     *
+     * @return Number of offers settled
+     */
+    int processLapsedOffers();
+}
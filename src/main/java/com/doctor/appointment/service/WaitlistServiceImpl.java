@@ -0,0 +1,330 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.event.AppointmentSlotFreedEvent;
+import com.doctor.appointment.model.Appointment;
+import com.doctor.appointment.model.AppointmentStatus;
+import com.doctor.appointment.model.DTO.WaitlistEntryDTO;
+import com.doctor.appointment.model.DTO.WaitlistRequestDTO;
+import com.doctor.appointment.model.Doctor;
+import com.doctor.appointment.model.Patient;
+import com.doctor.appointment.model.ReservationOutcome;
+import com.doctor.appointment.model.WaitlistEntry;
+import com.doctor.appointment.model.WaitlistStatus;
+import com.doctor.appointment.repository.AppointmentRepository;
+import com.doctor.appointment.repository.DoctorRepository;
+import com.doctor.appointment.repository.PatientRepository;
+import com.doctor.appointment.repository.WaitlistEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * Waitlist backed by the waitlist_entries table with an in-memory priority queue per doctor.
+ *
+ * Each doctor's waiting entries are kept in join order (earlier entries first). When a slot of
+ * the doctor frees up, the queue is walked in that order and the slot goes to the first entry
+ * whose date range and time window contain it, as a reservation held for the offer duration.
+ * Entry state changes are conditional updates, so a stale in-memory entry (e.g. cancelled on
+ * another instance) is skipped rather than offered twice. Each offer attempt commits in its own
+ * transaction, since offers are made after the change that freed the slot has committed.
+ */
+@Service
+public class WaitlistServiceImpl implements WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistServiceImpl.class);
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentReservationService reservationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${waitlist.offer-minutes:15}")
+    private int offerMinutes;
+
+    // Waiting entries per doctor, in priority (join) order
+    private final Map<Integer, NavigableSet<Waiter>> queues = new ConcurrentHashMap<>();
+
+    private enum OfferResult { OFFERED, STALE_ENTRY, SLOT_GONE }
+
+    private final TransactionTemplate offerTransaction;
+
+    public WaitlistServiceImpl(PlatformTransactionManager transactionManager) {
+        this.offerTransaction = new TransactionTemplate(transactionManager);
+        this.offerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Rebuild the in-memory queues from the entries still waiting
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        waitlistEntryRepository.expirePast(today);
+        int count = 0;
+        for (Object[] row : waitlistEntryRepository.findWaiting(today)) {
+            enqueue((Integer) row[1], new Waiter((Long) row[0], (Integer) row[2], (LocalDate) row[3],
+                    (LocalDate) row[4], (LocalTime) row[5], (LocalTime) row[6]));
+            count++;
+        }
+        logger.info("Waitlist rebuilt with {} waiting entries", count);
+    }
+
+    @Override
+    @Transactional
+    public WaitlistEntryDTO join(WaitlistRequestDTO request) {
+        LocalTime earliest = request.getEarliestTime() != null ? request.getEarliestTime() : LocalTime.MIN;
+        LocalTime latest = request.getLatestTime() != null ? request.getLatestTime() : LocalTime.of(23, 59, 59);
+        if (request.getToDate().isBefore(request.getFromDate())) {
+            throw new IllegalArgumentException("To date must not be before from date");
+        }
+        if (request.getToDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("The date range is already in the past");
+        }
+        if (latest.isBefore(earliest)) {
+            throw new IllegalArgumentException("Latest time must not be before earliest time");
+        }
+
+        Doctor doctor = doctorRepository.findById(request.getDoctorId())
+                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + request.getDoctorId()));
+        Patient patient = patientRepository.findById(request.getPatientId())
+                .orElseThrow(() -> new RuntimeException("Patient not found with id: " + request.getPatientId()));
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setDoctor(doctor);
+        entry.setPatient(patient);
+        entry.setFromDate(request.getFromDate());
+        entry.setToDate(request.getToDate());
+        entry.setEarliestTime(earliest);
+        entry.setLatestTime(latest);
+        entry.setStatus(WaitlistStatus.WAITING);
+        WaitlistEntry saved = waitlistEntryRepository.save(entry);
+
+        // Queued only once the entry has committed: an offer runs in its own transaction and would
+        // take an entry it cannot see yet for a stale one and drop it from the queue
+        int doctorId = doctor.getId();
+        Waiter waiter = new Waiter(saved.getId(), patient.getId(), saved.getFromDate(), saved.getToDate(),
+                earliest, latest);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(doctorId, waiter);
+                }
+            });
+        } else {
+            enqueue(doctorId, waiter);
+        }
+        logger.info("Patient {} joined the waitlist of doctor {} (entry {})", patient.getId(), doctor.getId(), saved.getId());
+        return convertToDTO(saved, null);
+    }
+
+    @Override
+    @Transactional
+    public void cancel(long entryId, int patientId) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found with id: " + entryId));
+        if (entry.getPatient().getId() != patientId) {
+            throw new RuntimeException("Waitlist entry does not belong to this patient");
+        }
+        int doctorId = entry.getDoctor().getId();
+        NavigableSet<Waiter> queue = queues.get(doctorId);
+        if (queue != null) {
+            queue.removeIf(waiter -> waiter.id() == entryId);
+        }
+
+        WaitlistStatus status = entry.getStatus();
+        if (status == WaitlistStatus.WAITING || status == WaitlistStatus.OFFERED) {
+            waitlistEntryRepository.transition(entryId, status, WaitlistStatus.CANCELLED,
+                    entry.getOfferedAppointmentId(), entry.getOfferExpiresAt());
+        }
+        if (status == WaitlistStatus.OFFERED && entry.getOfferedAppointmentId() != null) {
+            int appointmentId = entry.getOfferedAppointmentId();
+            if (reservationService.releaseReservation(appointmentId, patientId) == ReservationOutcome.RELEASED) {
+                // Offered to the next waiter once the release has committed
+                appointmentRepository.findById(appointmentId)
+                        .ifPresent(slot -> eventPublisher.publishEvent(
+                                new AppointmentSlotFreedEvent(doctorId, appointmentId, slot.getAppointmentTime())));
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> getByPatient(int patientId) {
+        return waitlistEntryRepository.findByPatientIdOrderByCreatedAtDesc(patientId).stream()
+                .map(entry -> convertToDTO(entry, entry.getStatus() == WaitlistStatus.OFFERED
+                        && entry.getOfferedAppointmentId() != null
+                        ? appointmentRepository.findById(entry.getOfferedAppointmentId()).orElse(null)
+                        : null))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int processLapsedOffers() {
+        waitlistEntryRepository.expirePast(LocalDate.now());
+        int settled = 0;
+        for (Object[] row : waitlistEntryRepository.findLapsedOffers(LocalDateTime.now())) {
+            long entryId = (Long) row[0];
+            int doctorId = (Integer) row[1];
+            int patientId = (Integer) row[2];
+            Integer appointmentId = (Integer) row[3];
+            Appointment slot = appointmentId != null ? appointmentRepository.findById(appointmentId).orElse(null) : null;
+
+            boolean booked = slot != null && slot.getStatus() != AppointmentStatus.AVAILABLE
+                    && slot.getPatient() != null && slot.getPatient().getId() == patientId;
+            WaitlistStatus outcome = booked ? WaitlistStatus.FULFILLED : WaitlistStatus.EXPIRED;
+            if (waitlistEntryRepository.transition(entryId, WaitlistStatus.OFFERED, outcome,
+                    appointmentId, (LocalDateTime) row[4]) == 0) {
+                continue;
+            }
+            settled++;
+            if (!booked && slot != null && slot.getStatus() == AppointmentStatus.AVAILABLE) {
+                offer(doctorId, slot.getId(), slot.getAppointmentTime());
+            }
+        }
+        if (settled > 0) {
+            logger.info("Settled {} lapsed waitlist offers", settled);
+        }
+        return settled;
+    }
+
+    /**
+     * Offer a freed slot once the change that freed it has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotFreed(AppointmentSlotFreedEvent event) {
+        try {
+            offer(event.getDoctorId(), event.getAppointmentId(), event.getAppointmentTime());
+        } catch (Exception e) {
+            logger.error("Could not offer freed slot {} of doctor {} to the waitlist",
+                    event.getAppointmentId(), event.getDoctorId(), e);
+        }
+    }
+
+    // Offer the slot to the first matching waiter in priority order
+    private void offer(int doctorId, int appointmentId, LocalDateTime slotTime) {
+        NavigableSet<Waiter> queue = queues.get(doctorId);
+        if (queue == null || queue.isEmpty() || !slotTime.isAfter(LocalDateTime.now())) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        // One offer at a time per doctor, so two freed slots never go to the same waiter
+        synchronized (queue) {
+            Iterator<Waiter> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                if (waiter.toDate().isBefore(today)) {
+                    // The periodic offer check marks it expired in the database
+                    iterator.remove();
+                    continue;
+                }
+                if (!waiter.matches(slotTime)) {
+                    continue;
+                }
+                // The waiter leaves the queue only once the outcome is known; on a failure it keeps its place
+                OfferResult result = offerTransaction.execute(status -> tryOffer(waiter, appointmentId));
+                if (result == OfferResult.OFFERED) {
+                    iterator.remove();
+                    logger.info("Offered slot {} of doctor {} to patient {} (waitlist entry {})",
+                            appointmentId, doctorId, waiter.patientId(), waiter.id());
+                    return;
+                }
+                if (result == OfferResult.SLOT_GONE) {
+                    return;
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private OfferResult tryOffer(Waiter waiter, int appointmentId) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(offerMinutes);
+        if (waitlistEntryRepository.transition(waiter.id(), WaitlistStatus.WAITING, WaitlistStatus.OFFERED,
+                appointmentId, expiresAt) == 0) {
+            return OfferResult.STALE_ENTRY;
+        }
+        ReservationOutcome outcome = reservationService.reserveSlot(appointmentId, waiter.patientId(), offerMinutes);
+        if (outcome == ReservationOutcome.RESERVED) {
+            return OfferResult.OFFERED;
+        }
+        // Someone else got the slot first; the waiter keeps its place
+        waitlistEntryRepository.transition(waiter.id(), WaitlistStatus.OFFERED, WaitlistStatus.WAITING, null, null);
+        return OfferResult.SLOT_GONE;
+    }
+
+    private void enqueue(int doctorId, Waiter waiter) {
+        queues.computeIfAbsent(doctorId, id -> new ConcurrentSkipListSet<>()).add(waiter);
+    }
+
+    private WaitlistEntryDTO convertToDTO(WaitlistEntry entry, Appointment offeredSlot) {
+        return new WaitlistEntryDTO(
+                entry.getId(),
+                entry.getDoctor().getId(),
+                entry.getPatient().getId(),
+                entry.getFromDate(),
+                entry.getToDate(),
+                entry.getEarliestTime(),
+                entry.getLatestTime(),
+                entry.getStatus(),
+                entry.getCreatedAt(),
+                entry.getOfferedAppointmentId(),
+                offeredSlot != null ? offeredSlot.getAppointmentTime() : null,
+                entry.getOfferExpiresAt()
+        );
+    }
+
+    /**
+     * In-memory copy of a waiting entry; lower ids joined earlier and come first
+     */
+    private record Waiter(long id, int patientId, LocalDate fromDate, LocalDate toDate,
+                          LocalTime earliestTime, LocalTime latestTime) implements Comparable<Waiter> {
+
+        boolean matches(LocalDateTime slotTime) {
+            LocalDate date = slotTime.toLocalDate();
+            LocalTime time = slotTime.toLocalTime();
+            return !date.isBefore(fromDate) && !date.isAfter(toDate)
+                    && !time.isBefore(earliestTime) && !time.isAfter(latestTime);
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            return Long.compare(id, other.id);
+        }
+    }
+}
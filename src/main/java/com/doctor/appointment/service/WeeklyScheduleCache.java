@@ -0,0 +1,67 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import com.doctor.appointment.repository.WorkingHourRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of compiled weekly schedules, one per doctor.
+ *
+ * Working hours are loaded and compiled once and then served from memory; the entry is
+ * dropped after a working hour create/update/delete (or a doctor change) commits.
+ */
+@Component
+public class WeeklyScheduleCache {
+
+    @Autowired
+    private WorkingHourRepository workingHourRepository;
+
+    private final Map<Integer, CompiledWeeklySchedule> schedules = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a load that raced with a change is not cached
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Get the compiled schedule of a doctor, loading it on first use
+     */
+    public CompiledWeeklySchedule get(int doctorId) {
+        CompiledWeeklySchedule schedule = schedules.get(doctorId);
+        if (schedule != null) {
+            return schedule;
+        }
+        long generation = generation(doctorId).get();
+        schedule = CompiledWeeklySchedule.compile(
+                workingHourRepository.findByDoctorIdOrderByDayOfWeekAscSequenceAsc(doctorId));
+        if (generation(doctorId).get() == generation) {
+            schedules.put(doctorId, schedule);
+            // An invalidation may have slipped in between the check and the put
+            if (generation(doctorId).get() != generation) {
+                schedules.remove(doctorId, schedule);
+            }
+        }
+        return schedule;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(DoctorScheduleChangedEvent event) {
+        if (event.getKind() == DoctorScheduleChangedEvent.Kind.WORKING_HOURS
+                || event.getKind() == DoctorScheduleChangedEvent.Kind.DOCTOR) {
+            invalidate(event.getDoctorId());
+        }
+    }
+
+    public void invalidate(int doctorId) {
+        generation(doctorId).incrementAndGet();
+        schedules.remove(doctorId);
+    }
+
+    private AtomicLong generation(int doctorId) {
+        return generations.computeIfAbsent(doctorId, id -> new AtomicLong());
+    }
+}
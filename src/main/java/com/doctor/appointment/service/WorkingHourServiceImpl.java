@@ -1,5 +1,6 @@
 package com.doctor.appointment.service;
 
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
 import com.doctor.appointment.model.Doctor;
 import com.doctor.appointment.model.WorkingHour;
 import com.doctor.appointment.model.DTO.WorkingHourCreateDTO;
@@ -8,6 +9,7 @@ import com.doctor.appointment.repository.DoctorRepository;
 import com.doctor.appointment.repository.WorkingHourRepository;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +29,9 @@ public class WorkingHourServiceImpl implements WorkingHourService {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public List<WorkingHourDTO> list(int doctorId) {
         return workingHourRepository.findByDoctorIdOrderByDayOfWeekAscSequenceAsc(doctorId)
@@ -52,6 +57,7 @@ public class WorkingHourServiceImpl implements WorkingHourService {
         wh.setSequence(dto.getSequence());
 
         WorkingHour saved = workingHourRepository.save(wh);
+        publishScheduleChange(doctorId);
         return modelMapper.map(saved, WorkingHourDTO.class);
     }
 
@@ -70,6 +76,7 @@ public class WorkingHourServiceImpl implements WorkingHourService {
         existing.setSequence(dto.getSequence());
 
         WorkingHour saved = workingHourRepository.save(existing);
+        publishScheduleChange(doctorId);
         return modelMapper.map(saved, WorkingHourDTO.class);
     }
 
@@ -79,6 +86,12 @@ public class WorkingHourServiceImpl implements WorkingHourService {
         WorkingHour existing = workingHourRepository.findByIdAndDoctorId(id, doctorId)
                 .orElseThrow(() -> new RuntimeException("Working hour not found for doctor:" + doctorId + ", id:" + id));
         workingHourRepository.delete(existing);
+        publishScheduleChange(doctorId);
+    }
+
+    private void publishScheduleChange(int doctorId) {
+        eventPublisher.publishEvent(DoctorScheduleChangedEvent.allDates(
+                doctorId, DoctorScheduleChangedEvent.Kind.WORKING_HOURS));
     }
 
     private void validateTimes(LocalTime start, LocalTime end) {
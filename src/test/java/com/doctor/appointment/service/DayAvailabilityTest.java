@@ -0,0 +1,92 @@
+package com.doctor.appointment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DayAvailabilityTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10);
+
+    @Test
+    void adjacentAppointmentsDoNotBlockSlot() {
+        DayAvailability day = new DayAvailability();
+        day.addAppointment(1, DATE.atTime(9, 0), 30);
+
+        assertTrue(day.isBusy(540, 570));
+        assertFalse(day.isBusy(510, 540));
+        assertFalse(day.isBusy(570, 600));
+    }
+
+    @Test
+    void appointmentOffTheMinuteBlocksBothTouchedSlots() {
+        DayAvailability day = new DayAvailability();
+        day.addAppointment(1, DATE.atTime(9, 29, 30), 30);
+
+        assertTrue(day.isBusy(540, 570));
+        assertTrue(day.isBusy(570, 600));
+        assertFalse(day.isBusy(600, 630));
+        assertNull(day.appointmentIdAt(569));
+    }
+
+    @Test
+    void occupyingRowWinsOverAvailableRowAtSameMinute() {
+        DayAvailability day = new DayAvailability();
+        day.addAppointment(7, DATE.atTime(10, 0), 30, false);
+        day.addAppointment(8, DATE.atTime(10, 0), 30, true);
+
+        assertEquals(8, day.appointmentIdAt(600));
+        assertTrue(day.isBusy(600, 630));
+    }
+
+    @Test
+    void availableRowDoesNotOccupyTime() {
+        DayAvailability day = new DayAvailability();
+        day.addAppointment(7, DATE.atTime(10, 0), 30, false);
+
+        assertEquals(7, day.appointmentIdAt(600));
+        assertFalse(day.isBusy(600, 630));
+    }
+
+    /**
+     * Slot occupancy must match the LocalDateTime overlap check the generator used before the bitset
+     */
+    @Test
+    void isBusyMatchesLocalDateTimeOverlapCheck() {
+        Random random = new Random(42);
+        int[] durations = {10, 15, 20, 30, 45, 60};
+        for (int run = 0; run < 500; run++) {
+            int duration = durations[random.nextInt(durations.length)];
+            List<LocalDateTime> appointments = new ArrayList<>();
+            DayAvailability day = new DayAvailability();
+            int count = random.nextInt(12);
+            for (int i = 0; i < count; i++) {
+                int second = random.nextInt(4) == 0 ? random.nextInt(60) : 0;
+                LocalDateTime start = DATE.atStartOfDay()
+                        .plusMinutes(random.nextInt(DayAvailability.MINUTES_PER_DAY - duration))
+                        .plusSeconds(second);
+                appointments.add(start);
+                day.addAppointment(i, start, duration);
+            }
+
+            int gridStart = random.nextInt(120);
+            for (int minute = gridStart; minute + duration <= DayAvailability.MINUTES_PER_DAY; minute += duration) {
+                LocalDateTime slotStart = DATE.atStartOfDay().plusMinutes(minute);
+                LocalDateTime slotEnd = slotStart.plusMinutes(duration);
+                boolean expected = appointments.stream()
+                        .anyMatch(apt -> slotStart.isBefore(apt.plusMinutes(duration)) && slotEnd.isAfter(apt));
+                assertEquals(expected, day.isBusy(minute, minute + duration),
+                        "run " + run + ", slot " + slotStart + ", appointments " + appointments);
+            }
+        }
+    }
+}
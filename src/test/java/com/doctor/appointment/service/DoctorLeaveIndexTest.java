@@ -0,0 +1,129 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.event.DoctorScheduleChangedEvent;
+import com.doctor.appointment.model.DoctorLeave;
+import com.doctor.appointment.model.LeaveStatus;
+import com.doctor.appointment.repository.DoctorLeaveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DoctorLeaveIndexTest {
+
+    private static final int DOCTOR_ID = 1;
+
+    private DoctorLeaveRepository leaveRepository;
+    private DoctorLeaveIndex index;
+
+    @BeforeEach
+    void setUp() {
+        leaveRepository = mock(DoctorLeaveRepository.class);
+        index = new DoctorLeaveIndex();
+        ReflectionTestUtils.setField(index, "leaveRepository", leaveRepository);
+    }
+
+    @Test
+    void noLeavesMeansNeverOnLeave() {
+        givenLeaves();
+
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(1)));
+        assertFalse(index.hasLeaveBetween(DOCTOR_ID, day(1), day(31)));
+    }
+
+    @Test
+    void leaveBoundsAreInclusive() {
+        givenLeaves(leave(10, 12));
+
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(9)));
+        assertTrue(index.isOnLeave(DOCTOR_ID, day(10)));
+        assertTrue(index.isOnLeave(DOCTOR_ID, day(12)));
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(13)));
+
+        assertTrue(index.hasLeaveBetween(DOCTOR_ID, day(1), day(10)));
+        assertTrue(index.hasLeaveBetween(DOCTOR_ID, day(12), day(20)));
+        assertTrue(index.hasLeaveBetween(DOCTOR_ID, day(11), day(11)));
+        assertFalse(index.hasLeaveBetween(DOCTOR_ID, day(1), day(9)));
+        assertFalse(index.hasLeaveBetween(DOCTOR_ID, day(13), day(20)));
+    }
+
+    @Test
+    void adjacentLeavesCoverEveryDay() {
+        givenLeaves(leave(10, 12), leave(13, 15));
+
+        for (int d = 10; d <= 15; d++) {
+            assertTrue(index.isOnLeave(DOCTOR_ID, day(d)), "day " + d);
+        }
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(16)));
+    }
+
+    @Test
+    void overlappingAndNestedLeavesAreMerged() {
+        // Unsorted like the repository order (start date descending) and overlapping
+        givenLeaves(leave(20, 22), leave(5, 9), leave(7, 14), leave(8, 8));
+
+        for (int d = 5; d <= 14; d++) {
+            assertTrue(index.isOnLeave(DOCTOR_ID, day(d)), "day " + d);
+        }
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(4)));
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(15)));
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(19)));
+        assertTrue(index.isOnLeave(DOCTOR_ID, day(21)));
+
+        assertFalse(index.hasLeaveBetween(DOCTOR_ID, day(15), day(19)));
+        assertTrue(index.hasLeaveBetween(DOCTOR_ID, day(15), day(20)));
+        assertTrue(index.hasLeaveBetween(DOCTOR_ID, day(1), day(31)));
+    }
+
+    @Test
+    void removedLeaveIsGoneAfterLeaveChangeEvent() {
+        givenLeaves(leave(10, 12), leave(20, 22));
+        assertTrue(index.isOnLeave(DOCTOR_ID, day(11)));
+
+        givenLeaves(leave(20, 22));
+        // Served from memory until the change is announced
+        assertTrue(index.isOnLeave(DOCTOR_ID, day(11)));
+
+        index.onScheduleChanged(DoctorScheduleChangedEvent.allDates(DOCTOR_ID, DoctorScheduleChangedEvent.Kind.LEAVES));
+        assertFalse(index.isOnLeave(DOCTOR_ID, day(11)));
+        assertFalse(index.hasLeaveBetween(DOCTOR_ID, day(1), day(19)));
+        assertTrue(index.isOnLeave(DOCTOR_ID, day(21)));
+    }
+
+    @Test
+    void leavesAreLoadedOncePerDoctor() {
+        givenLeaves(leave(10, 12));
+
+        index.isOnLeave(DOCTOR_ID, day(10));
+        index.isOnLeave(DOCTOR_ID, day(11));
+        index.hasLeaveBetween(DOCTOR_ID, day(1), day(31));
+
+        verify(leaveRepository, times(1)).findByDoctorIdAndStatusOrderByStartDateDesc(DOCTOR_ID, LeaveStatus.APPROVED);
+    }
+
+    private void givenLeaves(DoctorLeave... leaves) {
+        when(leaveRepository.findByDoctorIdAndStatusOrderByStartDateDesc(DOCTOR_ID, LeaveStatus.APPROVED))
+                .thenReturn(List.of(leaves));
+    }
+
+    private static DoctorLeave leave(int startDay, int endDay) {
+        DoctorLeave leave = new DoctorLeave();
+        leave.setStartDate(day(startDay));
+        leave.setEndDate(day(endDay));
+        leave.setStatus(LeaveStatus.APPROVED);
+        return leave;
+    }
+
+    private static LocalDate day(int dayOfMonth) {
+        return LocalDate.of(2025, 7, dayOfMonth);
+    }
+}
@@ -0,0 +1,217 @@
+package com.doctor.appointment.service;
+
+import com.doctor.appointment.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ReservationExpiryWheelTest {
+
+    // Span of the three levels in ticks (seconds)
+    private static final long WHEEL_SPAN = 64L * 64 * 64;
+
+    private static final Instant START = Instant.parse("2025-07-01T08:00:00Z");
+
+    private MutableClock clock;
+    private ReservationExpiryWheel wheel;
+
+    // Fired appointment ids in fire order, and the second each one fired at
+    private final List<Integer> fired = new ArrayList<>();
+    private final Map<Integer, Long> firedAt = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        wheel = new ReservationExpiryWheel(clock);
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        doAnswer(invocation -> {
+            int appointmentId = invocation.getArgument(0);
+            fired.add(appointmentId);
+            firedAt.put(appointmentId, clock.secondsSinceStart());
+            return 1;
+        }).when(appointmentRepository).releaseReservationIfExpired(anyInt(), anyInt(), any(LocalDateTime.class));
+        ReflectionTestUtils.setField(wheel, "appointmentRepository", appointmentRepository);
+    }
+
+    @Test
+    void holdFiresOnItsDeadlineSecond() {
+        wheel.schedule(1, 10, at(5));
+
+        tickUntil(4);
+        assertTrue(fired.isEmpty());
+        tickUntil(5);
+        assertEquals(List.of(1), fired);
+    }
+
+    @Test
+    void deadlineInsideASecondIsRoundedUp() {
+        wheel.schedule(1, 10, at(5).plusNanos(1_000_000));
+
+        tickUntil(5);
+        assertTrue(fired.isEmpty());
+        tickUntil(6);
+        assertEquals(List.of(1), fired);
+    }
+
+    @Test
+    void holdsOnEveryLevelFireOnTimeAndInOrder() {
+        long[] deadlines = {
+                1, 63, 64, 65,                                  // level 0 and its first cascade
+                4095, 4096, 4097,                               // level 1 / level 2 boundary
+                WHEEL_SPAN - 1, WHEEL_SPAN, WHEEL_SPAN + 1,     // top level edge and beyond it
+                3 * WHEEL_SPAN + 12345                          // several top-level wraps away
+        };
+        // Scheduled in reverse so fire order cannot come from insertion order
+        for (int i = deadlines.length - 1; i >= 0; i--) {
+            wheel.schedule(i, 100 + i, at(deadlines[i]));
+        }
+
+        tickUntil(deadlines[deadlines.length - 1]);
+
+        List<Integer> expectedOrder = new ArrayList<>();
+        for (int i = 0; i < deadlines.length; i++) {
+            expectedOrder.add(i);
+            assertEquals(deadlines[i], firedAt.get(i), "hold " + i + " fired at the wrong second");
+        }
+        assertEquals(expectedOrder, fired);
+    }
+
+    @Test
+    void holdsScheduledAfterStartCascadeFromTheirOwnOffset() {
+        tickUntil(100);
+        // 100 + 4000 lands in a level 1 bucket whose index was already passed in this round
+        wheel.schedule(1, 10, at(100 + 4000));
+        wheel.schedule(2, 20, at(100 + 64));
+        wheel.schedule(3, 30, at(100 + WHEEL_SPAN + 5));
+
+        tickUntil(100 + WHEEL_SPAN + 5);
+
+        assertEquals(List.of(2, 1, 3), fired);
+        assertEquals(164L, firedAt.get(2));
+        assertEquals(4100L, firedAt.get(1));
+        assertEquals(100 + WHEEL_SPAN + 5, firedAt.get(3));
+    }
+
+    @Test
+    void cancelledAndReplacedHoldsDoNotFire() {
+        wheel.schedule(1, 10, at(10));
+        wheel.schedule(2, 20, at(20));
+        wheel.schedule(3, 30, at(30));
+        wheel.cancel(1);
+        // A new hold on the same slot replaces the previous timer
+        wheel.schedule(2, 21, at(200));
+
+        tickUntil(300);
+
+        assertEquals(List.of(3, 2), fired);
+        assertEquals(200L, firedAt.get(2));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        tickUntil(50);
+        wheel.schedule(1, 10, at(20));
+
+        tickUntil(51);
+
+        assertEquals(List.of(1), fired);
+    }
+
+    @Test
+    void delayedTicksCatchUpInDeadlineOrder() {
+        wheel.schedule(1, 10, at(5000));
+        wheel.schedule(2, 20, at(70));
+        wheel.schedule(3, 30, at(3));
+
+        // One late tick covering all the deadlines
+        clock.setSeconds(6000);
+        wheel.advance();
+
+        assertEquals(List.of(3, 2, 1), fired);
+    }
+
+    @Test
+    void randomDeadlinesFireOnTheirSecond() {
+        Random random = new Random(7);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long last = 0;
+        for (int id = 0; id < 2000; id++) {
+            long deadline = 1 + (random.nextBoolean() ? random.nextInt(5000) : (long) random.nextInt((int) (2 * WHEEL_SPAN)));
+            deadlines.put(id, deadline);
+            last = Math.max(last, deadline);
+            wheel.schedule(id, id, at(deadline));
+        }
+
+        tickUntil(last);
+
+        assertEquals(deadlines.size(), fired.size());
+        long previous = 0;
+        for (int id : fired) {
+            assertEquals(deadlines.get(id), firedAt.get(id), "hold " + id);
+            assertTrue(firedAt.get(id) >= previous);
+            previous = firedAt.get(id);
+        }
+    }
+
+    // Advance the clock one second at a time up to the given second, running each tick
+    private void tickUntil(long seconds) {
+        for (long s = clock.secondsSinceStart() + 1; s <= seconds; s++) {
+            clock.setSeconds(s);
+            wheel.advance();
+        }
+    }
+
+    private static LocalDateTime at(long secondsAfterStart) {
+        return LocalDateTime.ofInstant(START.plusSeconds(secondsAfterStart), ZoneOffset.UTC);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void setSeconds(long secondsAfterStart) {
+            now = START.plusSeconds(secondsAfterStart);
+        }
+
+        long secondsSinceStart() {
+            return now.getEpochSecond() - START.getEpochSecond();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}